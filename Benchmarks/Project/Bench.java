@@ -0,0 +1,228 @@
+package Project;
+
+import java.io.PrintStream;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.CyclicBarrier;
+
+/**
+ * A small benchmark harness in the spirit of JMH, without the dependency. Each benchmark
+ * warms up, then runs for a fixed time on one or more threads while every invocation is
+ * timed into a LatencyHistogram. It reports throughput, latency percentiles, bytes
+ * allocated per operation (from the per-thread allocation counters) and the collections
+ * that happened while measuring.
+ */
+public class Bench {
+
+    public interface Op {
+        void run() throws Exception;
+    }
+
+    private static volatile Object objectSink;
+    private static volatile long valueSink;
+
+    private final PrintStream report;
+    private final long warmupNanos;
+    private final long measureNanos;
+    private final List<String> filters;
+
+    // Constructor
+    public Bench(PrintStream report, double warmupSeconds, double measureSeconds, List<String> filters) {
+        this.report = report;
+        this.warmupNanos = (long) (warmupSeconds * 1e9);
+        this.measureNanos = (long) (measureSeconds * 1e9);
+        this.filters = filters;
+    }
+
+    // Method to keep a result alive so the JIT cannot drop the work that produced it
+    public static void consume(Object value) {
+        objectSink = value;
+    }
+
+    // Method to keep a primitive result alive
+    public static void consume(long value) {
+        valueSink = value;
+    }
+
+    // Method to check if a benchmark was selected on the command line
+    public boolean enabled(String name) {
+        if (filters.isEmpty()) {
+            return true;
+        }
+        for (String filter : filters) {
+            if (name.toLowerCase(Locale.ROOT).contains(filter.toLowerCase(Locale.ROOT))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Method to print the column headings and the cost of timing an empty operation
+    public void printHeader() {
+        LatencyHistogram empty = new LatencyHistogram();
+        for (int i = 0; i < 1_000_000; i++) {
+            long start = System.nanoTime();
+            empty.record(System.nanoTime() - start);
+        }
+        report.printf("Timer overhead p50 %d ns, included in every latency below%n%n", empty.getValueAtPercentile(50));
+        report.printf("%-40s %3s %12s %9s %9s %9s %9s %9s %10s %9s %s%n", "benchmark", "thr", "ops/s", "p50", "p90",
+                "p99", "p99.9", "max", "B/op", "MB/s", "gc");
+    }
+
+    // Method to run a benchmark on one thread; returns the operations per second, 0 if it was not selected
+    public double run(String name, Op op) throws Exception {
+        return run(name, 1, op);
+    }
+
+    // Method to run a benchmark on `threads` threads at once; returns the operations per second, 0 if it was not selected
+    public double run(String name, int threads, Op op) throws Exception {
+        if (!enabled(name)) {
+            return 0;
+        }
+        Worker[] workers = new Worker[threads];
+        CyclicBarrier start = new CyclicBarrier(threads + 1);
+        for (int i = 0; i < threads; i++) {
+            workers[i] = new Worker(op, start);
+            workers[i].setName("bench-" + i);
+            workers[i].start();
+        }
+        await(start, workers); // everyone warmed up
+        long gcCount = gcCount();
+        long gcMillis = gcMillis();
+        long begin = System.nanoTime();
+        await(start, workers); // everyone measured
+        long elapsed = System.nanoTime() - begin;
+        long gcRuns = gcCount() - gcCount;
+        long gcTime = gcMillis() - gcMillis;
+
+        LatencyHistogram latency = new LatencyHistogram();
+        long allocated = 0;
+        for (Worker worker : workers) {
+            worker.join();
+            if (worker.failure != null) {
+                throw worker.failure;
+            }
+            latency.add(worker.latency);
+            allocated += worker.allocated;
+        }
+        long ops = latency.getCount();
+        double seconds = elapsed / 1e9;
+        report.printf(Locale.ROOT, "%-40s %3d %12.0f %9s %9s %9s %9s %9s %10.1f %9.1f %d/%dms%n", name, threads,
+                ops / seconds, time(latency.getValueAtPercentile(50)), time(latency.getValueAtPercentile(90)),
+                time(latency.getValueAtPercentile(99)), time(latency.getValueAtPercentile(99.9)),
+                time(latency.getMax()), ops == 0 ? 0.0 : (double) allocated / ops,
+                allocated / seconds / (1 << 20), gcRuns, gcTime);
+        return ops / seconds;
+    }
+
+    // Wait at the barrier, or rethrow what broke it
+    private static void await(CyclicBarrier barrier, Worker[] workers) throws Exception {
+        try {
+            barrier.await();
+        } catch (BrokenBarrierException e) {
+            for (Worker worker : workers) {
+                worker.join();
+                if (worker.failure != null) {
+                    throw worker.failure;
+                }
+            }
+            throw e;
+        }
+    }
+
+    // Method to print a note under the results
+    public void note(String text) {
+        report.println("    " + text);
+    }
+
+    /**
+     * Runs the operation on its own thread: warmup, then the timed part
+     */
+    private class Worker extends Thread {
+        private final Op op;
+        private final CyclicBarrier start;
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private long allocated;
+        private volatile Exception failure;
+
+        Worker(Op op, CyclicBarrier start) {
+            this.op = op;
+            this.start = start;
+        }
+
+        @Override
+        public void run() {
+            try {
+                long warmupEnd = System.nanoTime() + warmupNanos;
+                while (System.nanoTime() < warmupEnd) {
+                    op.run();
+                }
+                start.await();
+                long allocatedBefore = allocatedBytes();
+                long end = System.nanoTime() + measureNanos;
+                long now = System.nanoTime();
+                while (now < end) {
+                    op.run();
+                    long finished = System.nanoTime();
+                    latency.record(finished - now);
+                    now = finished;
+                }
+                allocated = allocatedBytes() - allocatedBefore;
+                start.await();
+            } catch (Exception e) {
+                failure = e;
+                start.reset(); // breaks the barrier for everyone else
+            }
+        }
+    }
+
+    private static long allocatedBytes() {
+        java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (threads instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) threads).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return 0;
+    }
+
+    private static long gcCount() {
+        long count = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(0, gc.getCollectionCount());
+        }
+        return count;
+    }
+
+    private static long gcMillis() {
+        long millis = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            millis += Math.max(0, gc.getCollectionTime());
+        }
+        return millis;
+    }
+
+    // Format nanoseconds with a unit that keeps the number short
+    private static String time(long nanos) {
+        if (nanos < 10_000) {
+            return nanos + "ns";
+        }
+        if (nanos < 10_000_000) {
+            return String.format(Locale.ROOT, "%.1fus", nanos / 1e3);
+        }
+        return String.format(Locale.ROOT, "%.1fms", nanos / 1e6);
+    }
+
+    // Method to get a list holding the non-flag arguments
+    static List<String> filters(String[] args) {
+        List<String> filters = new ArrayList<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--")) {
+                filters.add(arg);
+            }
+        }
+        return filters;
+    }
+}
@@ -0,0 +1,69 @@
+package Project;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Fixtures shared by the benchmark suites: generated question files and rooms full of
+ * players whose connections are only an outbound queue.
+ */
+public class BenchData {
+    private static final String[] CATEGORIES = { "Geography", "Science", "Literature", "History", "Sports", "Music" };
+
+    private BenchData() {
+    }
+
+    // Method to write a questions.txt with `count` questions spread over a few categories
+    public static Path writeQuestions(Path directory, int count) throws IOException {
+        Path file = directory.resolve("questions-" + count + ".txt");
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            for (int i = 0; i < count; i++) {
+                writer.write("Generated question number " + i + " about something?;" + CATEGORIES[i % CATEGORIES.length]
+                        + ";Answer " + i + ",Option B,Option C,Option D;Answer " + i);
+                writer.newLine();
+            }
+        }
+        return file;
+    }
+
+    // Method to create a player whose ServerThread has no socket; payloads stay in its outbound queue
+    public static ClientData player(Server server, String name) {
+        return new ClientData(name, new ServerThread(server, null));
+    }
+
+    // Method to add `count` players to a room and wait until the room has processed the joins
+    public static ClientData[] fill(Server server, GameRoom room, int count) throws InterruptedException, IOException {
+        ClientData[] players = new ClientData[count];
+        for (int i = 0; i < count; i++) {
+            players[i] = player(server, "player" + i);
+            room.addClient(players[i]);
+        }
+        settle(room);
+        drain(players);
+        return players;
+    }
+
+    // Method to wait until everything posted to the room so far has run
+    public static void settle(GameRoom room) throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(1);
+        room.execute(done::countDown);
+        done.await();
+    }
+
+    // Method to empty the players' queues the way their writers would, encoding each frame
+    public static long drain(ClientData[] players) throws IOException {
+        long bytes = 0;
+        for (ClientData player : players) {
+            OutboundQueue queue = player.getServerThread().getOutboundQueue();
+            EncodedPayload next;
+            while ((next = queue.poll()) != null) {
+                bytes += next.frame(Frames.CURRENT_VERSION).length;
+            }
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,43 @@
+package Project;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+/**
+ * Runs the benchmark suites. Arguments: --warmup=SECONDS and --time=SECONDS per benchmark,
+ * anything else selects the benchmarks whose name contains it (e.g. "codec" or "round.1000").
+ */
+public class Benchmarks {
+
+    public static void main(String[] args) throws Exception {
+        double warmup = 2;
+        double time = 5;
+        for (String arg : args) {
+            if (arg.startsWith("--warmup=")) {
+                warmup = Double.parseDouble(arg.substring("--warmup=".length()));
+            } else if (arg.startsWith("--time=")) {
+                time = Double.parseDouble(arg.substring("--time=".length()));
+            }
+        }
+        Bench bench = new Bench(System.out, warmup, time, Bench.filters(args));
+        System.setOut(new PrintStream(OutputStream.nullOutputStream())); // the game code logs every join and answer
+        Log.setLevel(Log.Level.OFF);
+        Path directory = Files.createTempDirectory("trivia-bench");
+        try {
+            Path questions = BenchData.writeQuestions(directory, 100_000);
+            bench.printHeader();
+            CodecBench.run(bench);
+            GameRoomBench.run(bench, questions);
+            QuestionBankBench.run(bench, questions);
+            BroadcastBench.run(bench);
+        } finally {
+            try (Stream<Path> files = Files.walk(directory)) {
+                files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+            }
+        }
+    }
+}
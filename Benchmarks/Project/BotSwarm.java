@@ -0,0 +1,591 @@
+package Project;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Headless load generator: thousands of bots speaking the wire protocol from a few selector
+ * threads, with no GameUI behind them. Bots connect, fill their rooms (the first bot of a room
+ * creates it), ready up once the room is full and answer every question after a log-normal
+ * think time. A room and all its bots live on one thread, so no bot state is shared.
+ *
+ * Three latencies are recorded:
+ * - question delivery: the server starting the round (from the question deadline, corrected
+ *   by the CONNECT clock sample unless the server is local) to the bot receiving it
+ * - answer ack: the bot sending ANSWER to the room's "locked in" notice for that bot
+ * - score sync: the room's last "locked in" notice of a round to the scoreboard that ends it
+ *
+ * Usage: BotSwarm --port=PORT [--host=HOST] [--bots=N] [--room-size=N] [--threads=N]
+ *        [--duration=SECONDS] [--think=MEDIAN_MS] [--think-spread=SIGMA]
+ *        [--connect-rate=PER_SECOND] [--slo=MS]
+ */
+public class BotSwarm {
+    private static final String LOCKED_IN = " has locked in an answer.";
+    private static final long REPORT_INTERVAL = 5000;
+
+    private String host = "localhost";
+    private int port = 12345;
+    private int bots = 1000;
+    private int roomSize = 10;
+    private int threads = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+    private long durationMs = 60000;
+    private double thinkMedianMs = 4000; // half the players answer within this
+    private double thinkSpread = 0.6; // sigma of the log-normal think time
+    private int connectRate = 500; // new connections per second across all threads
+    private long sloMs = 250; // answer ack p99 budget for the capacity verdict
+
+    private final LatencyHistogram connectLatency = new LatencyHistogram();
+    private final LatencyHistogram questionDelivery = new LatencyHistogram();
+    private final LatencyHistogram answerAck = new LatencyHistogram();
+    private final LatencyHistogram scoreSync = new LatencyHistogram();
+    private final AtomicLong connected = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong games = new AtomicLong();
+    private final AtomicLong questions = new AtomicLong();
+    private final AtomicLong answers = new AtomicLong();
+    private final AtomicLong scoreboards = new AtomicLong();
+    private final AtomicLong framesIn = new AtomicLong();
+    private final AtomicLong bytesIn = new AtomicLong();
+    private final AtomicLong framesOut = new AtomicLong();
+    private final AtomicLong bytesOut = new AtomicLong();
+    private boolean sameClock; // the server runs on this machine, so no clock correction is needed
+    private volatile boolean running = true;
+
+    public static void main(String[] args) throws Exception {
+        BotSwarm swarm = new BotSwarm();
+        for (String arg : args) {
+            if (arg.startsWith("--host=")) {
+                swarm.host = arg.substring("--host=".length());
+            } else if (arg.startsWith("--port=")) {
+                swarm.port = Integer.parseInt(arg.substring("--port=".length()));
+            } else if (arg.startsWith("--bots=")) {
+                swarm.bots = Integer.parseInt(arg.substring("--bots=".length()));
+            } else if (arg.startsWith("--room-size=")) {
+                swarm.roomSize = Math.max(1, Integer.parseInt(arg.substring("--room-size=".length())));
+            } else if (arg.startsWith("--threads=")) {
+                swarm.threads = Math.max(1, Integer.parseInt(arg.substring("--threads=".length())));
+            } else if (arg.startsWith("--duration=")) {
+                swarm.durationMs = (long) (Double.parseDouble(arg.substring("--duration=".length())) * 1000);
+            } else if (arg.startsWith("--think=")) {
+                swarm.thinkMedianMs = Double.parseDouble(arg.substring("--think=".length()));
+            } else if (arg.startsWith("--think-spread=")) {
+                swarm.thinkSpread = Double.parseDouble(arg.substring("--think-spread=".length()));
+            } else if (arg.startsWith("--connect-rate=")) {
+                swarm.connectRate = Math.max(1, Integer.parseInt(arg.substring("--connect-rate=".length())));
+            } else if (arg.startsWith("--slo=")) {
+                swarm.sloMs = Long.parseLong(arg.substring("--slo=".length()));
+            } else {
+                System.err.println("Unknown option: " + arg);
+            }
+        }
+        swarm.run();
+    }
+
+    // Method to run the swarm for the configured duration and print the report
+    private void run() throws Exception {
+        sameClock = InetAddress.getByName(host).isLoopbackAddress();
+        String prefix = Long.toString(System.currentTimeMillis() % 1_000_000, 36); // fresh room names every run
+        int roomCount = (bots + roomSize - 1) / roomSize;
+        List<List<Room>> perLoop = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            perLoop.add(new ArrayList<>());
+        }
+        for (int r = 0; r < roomCount; r++) {
+            int size = Math.min(roomSize, bots - r * roomSize);
+            Room room = new Room("swarm-" + prefix + "-" + r, size);
+            for (int b = 0; b < size; b++) {
+                room.bots[b] = new Bot("bot-" + prefix + "-" + (r * roomSize + b), room, b == 0);
+            }
+            perLoop.get(r % threads).add(room);
+        }
+
+        System.out.println("Bot swarm: " + bots + " bots in " + roomCount + " rooms on " + threads + " threads against "
+                + host + ":" + port + " for " + durationMs / 1000 + "s");
+        long begin = System.currentTimeMillis();
+        List<Loop> loops = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            Loop loop = new Loop(i, perLoop.get(i), (double) connectRate / threads);
+            loops.add(loop);
+            loop.start();
+        }
+        long end = begin + durationMs;
+        long now;
+        while ((now = System.currentTimeMillis()) < end) {
+            Thread.sleep(Math.min(REPORT_INTERVAL, end - now));
+            System.out.printf(Locale.ROOT, "%5.0fs connected %d, questions %d, answers %d, ack p99 %s%n",
+                    (System.currentTimeMillis() - begin) / 1000.0, connected.get() - dropped.get(), questions.get(),
+                    answers.get(), millis(answerAck.getValueAtPercentile(99)));
+        }
+        running = false;
+        for (Loop loop : loops) {
+            loop.wakeup();
+            loop.join();
+        }
+        report((System.currentTimeMillis() - begin) / 1000.0, roomCount);
+    }
+
+    // Method to print the capacity report
+    private void report(double seconds, int roomCount) {
+        System.out.println();
+        System.out.printf(Locale.ROOT, "Bot swarm report: %d bots in %d rooms of %d on %d threads, %.0fs against %s:%d%n",
+                bots, roomCount, roomSize, threads, seconds, host, port);
+        System.out.printf(Locale.ROOT, "  connections: %d connected, %d failed, %d dropped by the server%n",
+                connected.get(), failed.get(), dropped.get());
+        System.out.printf(Locale.ROOT, "  game: %d games started, %d questions received, %d answers sent, %d scoreboards%n",
+                games.get(), questions.get(), answers.get(), scoreboards.get());
+        System.out.printf(Locale.ROOT, "  traffic in: %d frames (%.0f/s), %.1f MB (%.2f MB/s)%n", framesIn.get(),
+                framesIn.get() / seconds, bytesIn.get() / 1e6, bytesIn.get() / 1e6 / seconds);
+        System.out.printf(Locale.ROOT, "  traffic out: %d frames (%.0f/s), %.1f MB%n", framesOut.get(),
+                framesOut.get() / seconds, bytesOut.get() / 1e6);
+        System.out.printf("  %-18s %9s %9s %9s %9s %9s %9s %9s%n", "latency", "count", "mean", "p50", "p90", "p99",
+                "p99.9", "max");
+        printLatency("connect", connectLatency);
+        printLatency("question delivery", questionDelivery);
+        printLatency("answer ack", answerAck);
+        printLatency("score sync", scoreSync);
+
+        long players = connected.get() - dropped.get();
+        long ackP99 = answerAck.getValueAtPercentile(99);
+        if (answerAck.getCount() == 0) {
+            System.out.println("Capacity: no answers were acknowledged, the server did not keep up with " + players + " players");
+        } else if (ackP99 <= sloMs * 1_000_000) {
+            System.out.printf(Locale.ROOT, "Capacity: %d players sustained, answer ack p99 %s is within the %d ms budget (%.0f answers/s)%n",
+                    players, millis(ackP99), sloMs, answers.get() / seconds);
+        } else {
+            System.out.printf(Locale.ROOT, "Capacity: over budget at %d players, answer ack p99 %s exceeds %d ms (%.0f answers/s)%n",
+                    players, millis(ackP99), sloMs, answers.get() / seconds);
+        }
+    }
+
+    private void printLatency(String name, LatencyHistogram histogram) {
+        System.out.printf("  %-18s %9d %9s %9s %9s %9s %9s %9s%n", name, histogram.getCount(),
+                millis((long) histogram.getMean()), millis(histogram.getValueAtPercentile(50)),
+                millis(histogram.getValueAtPercentile(90)), millis(histogram.getValueAtPercentile(99)),
+                millis(histogram.getValueAtPercentile(99.9)), millis(histogram.getMax()));
+    }
+
+    // Format nanoseconds as milliseconds
+    private static String millis(long nanos) {
+        return String.format(Locale.ROOT, "%.2fms", nanos / 1e6);
+    }
+
+    /**
+     * A room as the swarm sees it: its bots, and how many of them made it in
+     */
+    private static class Room {
+        private final String name;
+        private final Bot[] bots;
+        private int alive; // bots that have not failed or been dropped
+        private int joined; // bots the server has sent this room's state to
+        private boolean created;
+
+        Room(String name, int size) {
+            this.name = name;
+            this.bots = new Bot[size];
+            this.alive = size;
+        }
+    }
+
+    /**
+     * One simulated player and its connection
+     */
+    private static class Bot {
+        private static final int CONNECTING = 0;
+        private static final int HELLO = 1; // waiting for the server's version byte
+        private static final int SESSION = 2;
+        private static final int CLOSED = 3;
+
+        private final String name;
+        private final Room room;
+        private boolean creator; // creates the room, handed on if the first bot never gets in
+        private SocketChannel channel;
+        private SelectionKey key;
+        private ByteBuffer in = ByteBuffer.allocate(16 * 1024);
+        private final ArrayDeque<ByteBuffer> out = new ArrayDeque<>();
+        private int state = CONNECTING;
+        private long connectStarted;
+        private long clockOffset; // server clock minus local clock
+        private boolean synced; // CLOCK_SYNC received, the bot can enter its room
+        private boolean joined;
+        private int options; // answer options of the open question, 0 when there is none
+        private long round; // bumped on every question, pending answers carry the round they were for
+        private long answerSent; // nanoTime of the ANSWER waiting for its ack, 0 if none
+        private int locks; // "locked in" notices seen this round
+        private long lastLock;
+
+        Bot(String name, Room room, boolean creator) {
+            this.name = name;
+            this.room = room;
+            this.creator = creator;
+        }
+    }
+
+    /**
+     * An answer waiting for its think time to pass
+     */
+    private static class PendingAnswer implements Comparable<PendingAnswer> {
+        private final long at;
+        private final Bot bot;
+        private final long round;
+
+        PendingAnswer(long at, Bot bot, long round) {
+            this.at = at;
+            this.bot = bot;
+            this.round = round;
+        }
+
+        @Override
+        public int compareTo(PendingAnswer other) {
+            return Long.compare(at, other.at);
+        }
+    }
+
+    /**
+     * A selector thread driving every bot of its rooms
+     */
+    private class Loop extends Thread {
+        private final List<Bot> toConnect = new ArrayList<>();
+        private final double connectsPerMs;
+        private final PriorityQueue<PendingAnswer> pending = new PriorityQueue<>();
+        private final Random random;
+        private Selector selector;
+        private int started;
+        private long rampStart;
+
+        Loop(int index, List<Room> rooms, double connectsPerSecond) {
+            super("swarm-" + index);
+            for (Room room : rooms) {
+                for (Bot bot : room.bots) {
+                    toConnect.add(bot);
+                }
+            }
+            this.connectsPerMs = connectsPerSecond / 1000;
+            this.random = new Random(index);
+        }
+
+        void wakeup() {
+            if (selector != null) {
+                selector.wakeup();
+            }
+        }
+
+        @Override
+        public void run() {
+            try (Selector opened = Selector.open()) {
+                selector = opened;
+                rampStart = System.currentTimeMillis();
+                while (running) {
+                    connectMore();
+                    selector.select(nextWait());
+                    for (SelectionKey key : selector.selectedKeys()) {
+                        Bot bot = (Bot) key.attachment();
+                        try {
+                            handleKey(bot, key);
+                        } catch (IOException | RuntimeException e) {
+                            close(bot);
+                        }
+                    }
+                    selector.selectedKeys().clear();
+                    sendDueAnswers();
+                }
+                for (SelectionKey key : selector.keys()) {
+                    key.channel().close();
+                }
+            } catch (IOException e) {
+                System.err.println("Swarm thread failed: " + e.getMessage());
+            }
+        }
+
+        // Method to open as many connections as the ramp allows by now
+        private void connectMore() {
+            long due = Math.min(toConnect.size(), (long) ((System.currentTimeMillis() - rampStart) * connectsPerMs) + 1);
+            while (started < due) {
+                Bot bot = toConnect.get(started++);
+                try {
+                    bot.connectStarted = System.nanoTime();
+                    bot.channel = SocketChannel.open();
+                    bot.channel.configureBlocking(false);
+                    bot.channel.socket().setTcpNoDelay(true);
+                    bot.channel.connect(new InetSocketAddress(host, port));
+                    bot.key = bot.channel.register(selector, SelectionKey.OP_CONNECT, bot);
+                } catch (IOException e) {
+                    close(bot);
+                }
+            }
+        }
+
+        // How long the selector may sleep before the next connection or answer is due
+        private long nextWait() {
+            long wait = 100;
+            if (started < toConnect.size()) {
+                wait = Math.min(wait, Math.max(1, (long) (1 / connectsPerMs)));
+            }
+            PendingAnswer next = pending.peek();
+            if (next != null) {
+                wait = Math.min(wait, Math.max(1, (next.at - System.nanoTime()) / 1_000_000));
+            }
+            return wait;
+        }
+
+        private void handleKey(Bot bot, SelectionKey key) throws IOException {
+            if (!key.isValid()) {
+                return;
+            }
+            if (key.isConnectable()) {
+                bot.channel.finishConnect();
+                bot.state = Bot.HELLO;
+                key.interestOps(SelectionKey.OP_READ);
+                ByteBuffer hello = ByteBuffer.allocate(Frames.HELLO_SIZE);
+                hello.putShort((short) Frames.HELLO_MAGIC).put((byte) Frames.VERSION_BINARY).flip();
+                write(bot, hello);
+                return;
+            }
+            if (key.isWritable()) {
+                flush(bot);
+            }
+            if (key.isValid() && key.isReadable()) {
+                read(bot);
+            }
+        }
+
+        // Method to read what is available and handle every complete frame
+        private void read(Bot bot) throws IOException {
+            int count = bot.channel.read(bot.in);
+            if (count < 0) {
+                close(bot);
+                return;
+            }
+            bytesIn.addAndGet(count);
+            ByteBuffer in = bot.in;
+            in.flip();
+            if (bot.state == Bot.HELLO && in.hasRemaining()) {
+                int agreed = in.get() & 0xFF;
+                if (agreed != Frames.VERSION_BINARY) {
+                    throw new IOException("Server picked wire version " + agreed);
+                }
+                bot.state = Bot.SESSION;
+                send(bot, new ClockPayload(bot.name, "Connecting", PayloadType.CONNECT, System.currentTimeMillis(), 0));
+            }
+            int needed = 0;
+            while (bot.state == Bot.SESSION && in.remaining() >= Frames.HEADER_SIZE) {
+                int length = in.getInt(in.position());
+                Frames.checkLength(length);
+                if (in.remaining() < Frames.HEADER_SIZE + length) {
+                    needed = Frames.HEADER_SIZE + length;
+                    break;
+                }
+                Payload payload = PayloadCodec.decode(in.array(), in.position() + Frames.HEADER_SIZE, length);
+                in.position(in.position() + Frames.HEADER_SIZE + length);
+                framesIn.incrementAndGet();
+                handle(bot, payload);
+            }
+            in.compact();
+            if (needed > in.capacity()) {
+                // A room snapshot can be much larger than the usual frame
+                ByteBuffer larger = ByteBuffer.allocate(Math.max(needed, in.capacity() * 2));
+                in.flip();
+                larger.put(in);
+                bot.in = larger;
+            }
+        }
+
+        // Method to react to one payload from the server
+        private void handle(Bot bot, Payload payload) {
+            Room room = bot.room;
+            switch (payload.getType()) {
+                case CLOCK_SYNC:
+                    if (payload instanceof ClockPayload && !bot.synced) {
+                        ClockPayload clock = (ClockPayload) payload;
+                        long now = System.currentTimeMillis();
+                        // Under load the reply waits behind other work and skews the estimate, a shared clock needs none
+                        bot.clockOffset = sameClock ? 0 : clock.getServerTime() + (now - clock.getClientTime()) / 2 - now;
+                        bot.synced = true;
+                        connected.incrementAndGet();
+                        connectLatency.record(System.nanoTime() - bot.connectStarted);
+                        if (bot.creator) {
+                            send(bot, new Payload(bot.name, room.name, PayloadType.CREATE_ROOM));
+                        } else if (room.created) {
+                            send(bot, new Payload(bot.name, room.name, PayloadType.JOIN_ROOM));
+                        }
+                    }
+                    break;
+                case ROOM_STATE:
+                    if (room.name.equals(payload.getMessage()) && !bot.joined) {
+                        bot.joined = true;
+                        room.joined++;
+                        if (bot.creator) {
+                            room.created = true;
+                            for (Bot other : room.bots) {
+                                if (other != bot && other.synced && other.state == Bot.SESSION) {
+                                    send(other, new Payload(other.name, room.name, PayloadType.JOIN_ROOM));
+                                }
+                            }
+                        }
+                        readyIfFull(room);
+                    }
+                    break;
+                case START_GAME:
+                    if (bot.creator) {
+                        games.incrementAndGet();
+                    }
+                    break;
+                case QUESTION:
+                    if (payload instanceof QAPayload) {
+                        QAPayload question = (QAPayload) payload;
+                        questions.incrementAndGet();
+                        long roundStart = question.getDeadline() - GameRoom.ROUND_DURATION;
+                        questionDelivery.record((System.currentTimeMillis() + bot.clockOffset - roundStart) * 1_000_000);
+                        bot.options = question.getAnswerOptions() == null ? 0 : question.getAnswerOptions().length;
+                        bot.round++;
+                        bot.locks = 0;
+                        bot.answerSent = 0;
+                        long think = (long) (thinkMedianMs * Math.exp(thinkSpread * random.nextGaussian()));
+                        think = Math.max(200, Math.min(GameRoom.ROUND_DURATION - 1000, think));
+                        pending.add(new PendingAnswer(System.nanoTime() + think * 1_000_000, bot, bot.round));
+                    }
+                    break;
+                case NOTIFICATION:
+                    String message = payload.getMessage();
+                    if (message != null && message.endsWith(LOCKED_IN)) {
+                        long now = System.nanoTime();
+                        bot.locks++;
+                        bot.lastLock = now;
+                        if (bot.answerSent != 0 && message.length() == bot.name.length() + LOCKED_IN.length()
+                                && message.startsWith(bot.name)) {
+                            answerAck.record(now - bot.answerSent);
+                            bot.answerSent = 0;
+                        }
+                    }
+                    break;
+                case SCOREBOARD:
+                    scoreboards.incrementAndGet();
+                    if (bot.locks > 0 && bot.locks >= room.joined) {
+                        scoreSync.record(System.nanoTime() - bot.lastLock); // every answer was in, the round ended on the last one
+                    }
+                    bot.locks = 0;
+                    bot.options = 0;
+                    break;
+                case READY:
+                    send(bot, new Payload(bot.name, "Ready", PayloadType.READY)); // a new session, ready up again
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        // Method to ready up every bot once all the room's live bots are in
+        private void readyIfFull(Room room) {
+            if (room.alive == 0 || room.joined < room.alive) {
+                return;
+            }
+            for (Bot bot : room.bots) {
+                if (bot.joined && bot.state == Bot.SESSION) {
+                    send(bot, new Payload(bot.name, "Ready", PayloadType.READY));
+                }
+            }
+        }
+
+        // Method to send the answers whose think time is over
+        private void sendDueAnswers() {
+            long now = System.nanoTime();
+            PendingAnswer next;
+            while ((next = pending.peek()) != null && next.at <= now) {
+                pending.poll();
+                Bot bot = next.bot;
+                if (bot.state != Bot.SESSION || bot.round != next.round || bot.options == 0) {
+                    continue; // the bot is gone or the round ended without it
+                }
+                String answer = String.valueOf((char) ('A' + random.nextInt(bot.options)));
+                bot.answerSent = System.nanoTime();
+                answers.incrementAndGet();
+                send(bot, new Payload(bot.name, answer, PayloadType.ANSWER));
+            }
+        }
+
+        private void send(Bot bot, Payload payload) {
+            try {
+                write(bot, ByteBuffer.wrap(Frames.encode(payload, Frames.VERSION_BINARY)));
+                framesOut.incrementAndGet();
+            } catch (IOException e) {
+                close(bot);
+            }
+        }
+
+        // Method to write now if nothing is queued, and queue whatever the socket does not take
+        private void write(Bot bot, ByteBuffer frame) throws IOException {
+            bytesOut.addAndGet(frame.remaining());
+            if (bot.out.isEmpty()) {
+                bot.channel.write(frame);
+                if (!frame.hasRemaining()) {
+                    return;
+                }
+            }
+            bot.out.add(frame);
+            bot.key.interestOps(bot.key.interestOps() | SelectionKey.OP_WRITE);
+        }
+
+        private void flush(Bot bot) throws IOException {
+            ByteBuffer frame;
+            while ((frame = bot.out.peek()) != null) {
+                bot.channel.write(frame);
+                if (frame.hasRemaining()) {
+                    return;
+                }
+                bot.out.poll();
+            }
+            bot.key.interestOps(SelectionKey.OP_READ);
+        }
+
+        // Method to close a bot's connection and take it out of its room
+        private void close(Bot bot) {
+            if (bot.state == Bot.CLOSED) {
+                return;
+            }
+            if (bot.synced) {
+                dropped.incrementAndGet();
+            } else {
+                failed.incrementAndGet();
+            }
+            bot.state = Bot.CLOSED;
+            if (bot.channel != null) {
+                try {
+                    bot.channel.close();
+                } catch (IOException e) {
+                    // already closed
+                }
+            }
+            Room room = bot.room;
+            room.alive--;
+            if (bot.joined) {
+                room.joined--;
+                return;
+            }
+            if (bot.creator && !room.created) {
+                bot.creator = false;
+                for (Bot other : room.bots) {
+                    if (other.state != Bot.CLOSED) {
+                        other.creator = true;
+                        if (other.synced) {
+                            send(other, new Payload(other.name, room.name, PayloadType.CREATE_ROOM));
+                        }
+                        break;
+                    }
+                }
+            }
+            readyIfFull(room); // the rest of the room no longer waits for this bot
+        }
+    }
+}
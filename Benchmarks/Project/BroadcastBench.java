@@ -0,0 +1,109 @@
+package Project;
+
+import java.io.IOException;
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Fan-out: one payload encoded once and queued for every member of a room, directly and
+ * through Server.broadcastToRoom from several threads while writers drain the queues, into
+ * one shared room and into many rooms at once
+ */
+public class BroadcastBench {
+
+    private BroadcastBench() {
+    }
+
+    public static void run(Bench bench) throws Exception {
+        Payload payload = new Payload("Server", "bob answered correctly and earned 20 points.", PayloadType.NOTIFICATION);
+        Server server = new Server(0);
+        StringBuilder perMember = new StringBuilder();
+        for (int members : new int[] { 10, 100, 1000, 10_000 }) {
+            if (!bench.enabled("broadcast.room." + members)) {
+                continue;
+            }
+            GameRoom room = new GameRoom("fanout-" + members);
+            ClientData[] players = BenchData.fill(server, room, members);
+            // Drained inside the op, the frame is encoded once for the first recipient and reused
+            double opsPerSecond = bench.run("broadcast.room." + members, () -> {
+                room.broadcast(payload);
+                Bench.consume(BenchData.drain(players));
+            });
+            perMember.append(String.format(Locale.ROOT, " %d: %.0f ns,", members, 1e9 / opsPerSecond / members));
+        }
+        if (perMember.length() > 0) {
+            // Flat when encoding is paid once per broadcast rather than once per recipient
+            bench.note("broadcast.room cost per member," + perMember.substring(0, perMember.length() - 1));
+        }
+
+        // Deep queues, so payloads are only dropped when the drainer really falls behind the broadcasters
+        server.setQueueCapacity(1 << 16);
+        GameRoom room = new GameRoom("fanout-shared");
+        ClientData[] players = BenchData.fill(server, room, 100);
+        for (int threads : new int[] { 1, 4 }) {
+            if (!bench.enabled("broadcastToRoom.100")) {
+                break;
+            }
+            Drainer drainer = new Drainer(players);
+            drainer.start();
+            bench.run("broadcastToRoom.100", threads, () -> server.broadcastToRoom(room, payload));
+            drainer.finish();
+            long dropped = 0;
+            for (ClientData player : players) {
+                dropped += player.getServerThread().getOutboundQueue().getDropped();
+            }
+            bench.note(threads + " thread(s): " + drainer.bytes / (1 << 20) + " MB encoded by the drainer, " + dropped + " payloads dropped");
+        }
+
+        // Many rooms broadcasting at once, each op into a random one of 1,000 rooms of 10 (10,000 players).
+        // The rooms share nothing, so throughput should grow with threads instead of queueing on one lock.
+        if (!bench.enabled("broadcastToRoom.rooms.1000x10")) {
+            return;
+        }
+        GameRoom[] rooms = new GameRoom[1000];
+        ClientData[] everyone = new ClientData[rooms.length * 10];
+        for (int r = 0; r < rooms.length; r++) {
+            rooms[r] = new GameRoom("fanout-many-" + r);
+            System.arraycopy(BenchData.fill(server, rooms[r], 10), 0, everyone, r * 10, 10);
+        }
+        for (int threads : new int[] { 1, 4, 16 }) {
+            Drainer drainer = new Drainer(everyone);
+            drainer.start();
+            bench.run("broadcastToRoom.rooms.1000x10", threads,
+                    () -> server.broadcastToRoom(rooms[ThreadLocalRandom.current().nextInt(rooms.length)], payload));
+            drainer.finish();
+            bench.note(threads + " thread(s) over 1000 rooms: " + drainer.bytes / (1 << 20) + " MB encoded by the drainer");
+        }
+    }
+
+    /**
+     * Stands in for the writer threads, emptying every queue until told to stop
+     */
+    private static class Drainer extends Thread {
+        private final ClientData[] players;
+        private volatile boolean running = true;
+        private long bytes;
+
+        Drainer(ClientData[] players) {
+            this.players = players;
+            setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (running) {
+                    bytes += BenchData.drain(players);
+                }
+                bytes += BenchData.drain(players);
+            } catch (IOException e) {
+                System.err.println("Drainer failed: " + e.getMessage());
+            }
+        }
+
+        void finish() throws InterruptedException {
+            running = false;
+            join();
+        }
+    }
+}
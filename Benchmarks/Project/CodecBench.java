@@ -0,0 +1,31 @@
+package Project;
+
+/**
+ * Frame encoding and decoding of the common payloads, for both wire versions
+ */
+public class CodecBench {
+
+    private CodecBench() {
+    }
+
+    public static void run(Bench bench) throws Exception {
+        Payload notification = new Payload("Server", "bob answered correctly and earned 20 points.", PayloadType.NOTIFICATION);
+        QAPayload question = new QAPayload("Server", "New Question", PayloadType.QUESTION, "Which planet is known as the Red Planet?",
+                new String[] { "Earth", "Mars", "Venus", "Jupiter" });
+        question.setDeadline(System.currentTimeMillis() + 30000);
+        TimePayload time = new TimePayload("Server", "Time Update", PayloadType.TIME, 17000);
+
+        Payload[] payloads = { notification, question, time };
+        String[] names = { "Payload", "QAPayload", "TimePayload" };
+        for (int version = Frames.VERSION_SERIALIZED; version <= Frames.CURRENT_VERSION; version++) {
+            int wireVersion = version;
+            for (int i = 0; i < payloads.length; i++) {
+                Payload payload = payloads[i];
+                byte[] frame = Frames.encode(payload, wireVersion);
+                bench.run("codec.encode." + names[i] + ".v" + wireVersion, () -> Bench.consume(Frames.encode(payload, wireVersion)));
+                bench.run("codec.decode." + names[i] + ".v" + wireVersion, () -> Bench.consume(
+                        Frames.decode(frame, Frames.HEADER_SIZE, frame.length - Frames.HEADER_SIZE, wireVersion)));
+            }
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package Project;
+
+import java.nio.file.Path;
+import java.util.Locale;
+
+/**
+ * Answer handling: the scoring function on its own, whole rounds of answers going through a
+ * room's mailbox, including the notifications and scoreboard they broadcast, and single
+ * answers in rooms of up to 100,000 players
+ */
+public class GameRoomBench {
+    private static final int SESSION_ROUNDS = 5; // GameRoom ends the session after this many rounds
+
+    private GameRoomBench() {
+    }
+
+    public static void run(Bench bench, Path questions) throws Exception {
+        long[] responseTimes = { 1200, 4999, 5001, 9000, 15000, 15001, 29000 };
+        int[] next = new int[1];
+        bench.run("game.calculatePoints", () -> {
+            next[0] = (next[0] + 1) % responseTimes.length;
+            Bench.consume(GameRoom.calculatePoints(responseTimes[next[0]]));
+        });
+
+        QuestionBank.setDefaultPath(questions.toString());
+        GameRoom.setTimeTicks(false); // only the deadline timer, which never fires during a run
+        Server server = new Server(0);
+        for (int players : new int[] { 10, 100, 1000 }) {
+            if (!bench.enabled("game.processAnswer.round." + players)) {
+                continue;
+            }
+            GameRoom room = new GameRoom("bench-" + players);
+            ClientData[] members = BenchData.fill(server, room, players);
+            room.startFirstRound();
+            BenchData.settle(room);
+            BenchData.drain(members);
+            // The generated questions always have the right answer first, so every answer scores.
+            // The last answer ends the round and the room opens the next one, ready for the next op;
+            // after the last round of a session a new one is started, since a player answers once per round.
+            int[] rounds = new int[1];
+            bench.run("game.processAnswer.round." + players, () -> {
+                for (ClientData member : members) {
+                    room.processAnswer(member, "A");
+                }
+                if (++rounds[0] % SESSION_ROUNDS == 0) {
+                    room.startFirstRound();
+                }
+                BenchData.settle(room);
+                Bench.consume(BenchData.drain(members));
+            });
+        }
+        bench.note("processAnswer.round.N: N players answer, the round ends and the next one opens; per op, not per answer;"
+                + " B/op counts the benchmark thread only, not the room worker that handles the answers");
+
+        // A whole round is O(N^2) whatever the room does, since every answer sends two notices to all N members,
+        // so large rooms are measured one answer at a time next to the same two broadcasts without the answer
+        Payload notice = new Payload("Server", "player answered correctly and earned 20 points.", PayloadType.NOTIFICATION);
+        StringBuilder ingestion = new StringBuilder();
+        for (int players : new int[] { 1000, 10_000, 100_000 }) {
+            if (!bench.enabled("game.processAnswer.one." + players) && !bench.enabled("game.twoNotices." + players)) {
+                continue;
+            }
+            GameRoom room = new GameRoom("bench-one-" + players);
+            ClientData[] members = BenchData.fill(server, room, players);
+            room.startFirstRound();
+            BenchData.settle(room);
+            BenchData.drain(members);
+            int[] answering = new int[1];
+            int[] rounds = new int[1];
+            // Members take turns and each answers once per round; only the op with the round's last answer also
+            // ends the round and opens the next, so that cost is spread over `players` ops
+            double answers = bench.run("game.processAnswer.one." + players, () -> {
+                room.processAnswer(members[answering[0]], "A");
+                if (++answering[0] == players) {
+                    answering[0] = 0;
+                    if (++rounds[0] % SESSION_ROUNDS == 0) {
+                        room.startFirstRound();
+                    }
+                }
+                BenchData.settle(room);
+                Bench.consume(BenchData.drain(members));
+            });
+            double notices = bench.run("game.twoNotices." + players, () -> {
+                room.broadcast(notice);
+                room.broadcast(notice);
+                BenchData.settle(room);
+                Bench.consume(BenchData.drain(members));
+            });
+            if (answers > 0 && notices > 0) {
+                ingestion.append(String.format(Locale.ROOT, " %d: %.2f,", players, notices / answers));
+            }
+        }
+        if (ingestion.length() > 0) {
+            // Stays near 1 at every size when the slot and bitset bookkeeping is O(1) and the notices are all that grows
+            bench.note("processAnswer.one time over twoNotices time," + ingestion.substring(0, ingestion.length() - 1));
+        }
+    }
+}
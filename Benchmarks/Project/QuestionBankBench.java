@@ -0,0 +1,35 @@
+package Project;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Loading questions: building the binary bank from questions.txt, opening it, and the
+ * room creation that follows
+ */
+public class QuestionBankBench {
+
+    private QuestionBankBench() {
+    }
+
+    // `questions` holds 100k questions; a 1M question file is generated next to it
+    public static void run(Bench bench, Path questions) throws Exception {
+        run(bench, questions, "100k");
+        if (bench.enabled("questions.build.1M") || bench.enabled("questions.open.1M")
+                || bench.enabled("questions.newGameRoom.1M")) {
+            run(bench, BenchData.writeQuestions(questions.getParent(), 1_000_000), "1M");
+        }
+        QuestionBank.setDefaultPath(questions.toString()); // later suites use the 100k bank
+        bench.note("questions.open maps the bank built next to questions.txt; build rewrites it from the text file");
+    }
+
+    private static void run(Bench bench, Path questions, String size) throws Exception {
+        Path binary = Files.createTempFile(questions.getParent(), "bank", ".bin");
+        bench.run("questions.build." + size, () -> QuestionBank.build(questions, binary));
+        bench.run("questions.open." + size, () -> Bench.consume(QuestionBank.open(questions)));
+
+        QuestionBank.setDefaultPath(questions.toString());
+        int[] rooms = new int[1];
+        bench.run("questions.newGameRoom." + size, () -> Bench.consume(new GameRoom("room-" + rooms[0]++)));
+    }
+}
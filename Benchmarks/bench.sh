@@ -0,0 +1,20 @@
+#!/bin/sh
+# Builds the server sources together with the benchmarks and runs them.
+# Usage: Benchmarks/bench.sh [--warmup=SECONDS] [--time=SECONDS] [name filters...]
+#        Benchmarks/bench.sh swarm --port=PORT [--bots=N] [--room-size=N] [--threads=N] [--duration=SECONDS] ...
+#        Benchmarks/bench.sh jmh [JMH options...]   (needs Maven; runs the JMH suites with the GC profiler)
+set -e
+cd "$(dirname "$0")/.."
+if [ "$1" = "jmh" ]; then
+    shift
+    mvn -B -q -f Benchmarks/pom.xml package
+    exec java -jar Benchmarks/target/benchmarks.jar -prof gc "$@"
+fi
+mkdir -p Benchmarks/out
+find Project Benchmarks/Project -name "*.java" > Benchmarks/out/sources.txt
+javac -d Benchmarks/out @Benchmarks/out/sources.txt
+if [ "$1" = "swarm" ]; then
+    shift
+    exec java -cp Benchmarks/out Project.BotSwarm "$@"
+fi
+exec java -cp Benchmarks/out Project.Benchmarks "$@"
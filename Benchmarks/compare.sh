@@ -0,0 +1,37 @@
+#!/bin/sh
+# Runs the same bot swarm against a thread-per-connection server and then an NIO server,
+# each started fresh on this machine, and prints both reports one after the other.
+# Usage: Benchmarks/compare.sh [--port=PORT] [swarm options...]
+#        e.g. Benchmarks/compare.sh --bots=2000 --room-size=10 --duration=60
+set -e
+cd "$(dirname "$0")/.."
+port=12399
+case "$1" in
+    --port=*) port="${1#--port=}"; shift ;;
+esac
+mkdir -p Benchmarks/out
+find Project Benchmarks/Project -name "*.java" > Benchmarks/out/sources.txt
+javac -d Benchmarks/out @Benchmarks/out/sources.txt
+work=$(mktemp -d)
+trap 'rm -rf "$work"' EXIT
+
+for mode in blocking nio; do
+    flag=""
+    if [ "$mode" = "nio" ]; then
+        flag="--nio"
+    fi
+    # The server reads Project/questions.txt, so it runs from the repository root
+    java -cp Benchmarks/out Project.Server --headless $flag --port="$port" --log=warn \
+        --data-dir="$work/$mode" > "$work/$mode-server.log" 2>&1 &
+    server=$!
+    for i in $(seq 1 50); do
+        grep -q "Server started" "$work/$mode-server.log" && break
+        sleep 0.2
+    done
+    echo "== $mode server (pid $server, $(nproc) cores)"
+    java -cp Benchmarks/out Project.BotSwarm --port="$port" "$@" | sed -n '/^Bot swarm report/,$p'
+    echo "   server threads at the end: $(ls /proc/$server/task 2>/dev/null | wc -l)"
+    kill "$server"
+    wait "$server" 2>/dev/null || true
+    echo
+done
@@ -0,0 +1,54 @@
+package Project;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * JMH version of BroadcastBench's fan-out: one payload encoded once and queued for every
+ * member of a room, then drained the way the writers would
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BroadcastJmh {
+
+    @Param({ "10", "100", "1000", "10000" })
+    private int members;
+
+    private final Payload payload = new Payload("Server", "bob answered correctly and earned 20 points.",
+            PayloadType.NOTIFICATION);
+    private GameRoom room;
+    private ClientData[] players;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        Log.setLevel(Log.Level.OFF);
+        room = new GameRoom("jmh-fanout-" + members);
+        players = BenchData.fill(new Server(0), room, members);
+    }
+
+    // The frame is encoded for the first recipient and reused for the rest
+    @Benchmark
+    public long roomBroadcast() throws Exception {
+        room.broadcast(payload);
+        return BenchData.drain(players);
+    }
+}
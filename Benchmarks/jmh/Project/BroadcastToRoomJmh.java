@@ -0,0 +1,97 @@
+package Project;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * JMH version of BroadcastBench's contention cases: Server.broadcastToRoom from four threads
+ * into one shared room of 100 and into 1,000 rooms of 10, while a drainer stands in for the writers
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BroadcastToRoomJmh {
+
+    private final Payload payload = new Payload("Server", "bob answered correctly and earned 20 points.",
+            PayloadType.NOTIFICATION);
+    private Server server;
+    private GameRoom room;
+    private ClientData[] players;
+    private GameRoom[] rooms;
+    private ClientData[] everyone;
+    private Thread drainer;
+    private volatile boolean draining;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        Log.setLevel(Log.Level.OFF);
+        server = new Server(0);
+        server.setQueueCapacity(1 << 16); // payloads are only dropped when the drainer really falls behind
+        room = new GameRoom("jmh-shared");
+        players = BenchData.fill(server, room, 100);
+        // 1,000 rooms of 10, for broadcasts that share nothing but the server
+        rooms = new GameRoom[1000];
+        everyone = new ClientData[rooms.length * 10];
+        for (int r = 0; r < rooms.length; r++) {
+            rooms[r] = new GameRoom("jmh-many-" + r);
+            System.arraycopy(BenchData.fill(server, rooms[r], 10), 0, everyone, r * 10, 10);
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void startDrainer() {
+        draining = true;
+        drainer = new Thread(() -> {
+            try {
+                while (draining) {
+                    BenchData.drain(players);
+                    BenchData.drain(everyone);
+                }
+            } catch (Exception e) {
+                System.err.println("Drainer failed: " + e.getMessage());
+            }
+        }, "jmh-drainer");
+        drainer.setDaemon(true);
+        drainer.start();
+    }
+
+    @TearDown(Level.Iteration)
+    public void stopDrainer() throws Exception {
+        draining = false;
+        drainer.join();
+        BenchData.drain(players);
+        BenchData.drain(everyone);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void broadcastToRoomShared() {
+        server.broadcastToRoom(room, payload);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void broadcastToRoomMany() {
+        server.broadcastToRoom(rooms[ThreadLocalRandom.current().nextInt(rooms.length)], payload);
+    }
+}
@@ -0,0 +1,83 @@
+package Project;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * JMH version of CodecBench: frame encoding and decoding of the common payloads, for both wire versions
+ */
+@State(Scope.Thread)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CodecJmh {
+
+    @Param({ "1", "2" })
+    private int wireVersion;
+
+    private Payload notification;
+    private QAPayload question;
+    private TimePayload time;
+    private byte[] notificationFrame;
+    private byte[] questionFrame;
+    private byte[] timeFrame;
+
+    @Setup
+    public void setUp() throws Exception {
+        notification = new Payload("Server", "bob answered correctly and earned 20 points.", PayloadType.NOTIFICATION);
+        question = new QAPayload("Server", "New Question", PayloadType.QUESTION, "Which planet is known as the Red Planet?",
+                new String[] { "Earth", "Mars", "Venus", "Jupiter" });
+        question.setDeadline(System.currentTimeMillis() + 30000);
+        time = new TimePayload("Server", "Time Update", PayloadType.TIME, 17000);
+        notificationFrame = Frames.encode(notification, wireVersion);
+        questionFrame = Frames.encode(question, wireVersion);
+        timeFrame = Frames.encode(time, wireVersion);
+    }
+
+    @Benchmark
+    public byte[] encodePayload() throws Exception {
+        return Frames.encode(notification, wireVersion);
+    }
+
+    @Benchmark
+    public byte[] encodeQAPayload() throws Exception {
+        return Frames.encode(question, wireVersion);
+    }
+
+    @Benchmark
+    public byte[] encodeTimePayload() throws Exception {
+        return Frames.encode(time, wireVersion);
+    }
+
+    @Benchmark
+    public Payload decodePayload() throws Exception {
+        return decode(notificationFrame);
+    }
+
+    @Benchmark
+    public Payload decodeQAPayload() throws Exception {
+        return decode(questionFrame);
+    }
+
+    @Benchmark
+    public Payload decodeTimePayload() throws Exception {
+        return decode(timeFrame);
+    }
+
+    private Payload decode(byte[] frame) throws Exception {
+        return Frames.decode(frame, Frames.HEADER_SIZE, frame.length - Frames.HEADER_SIZE, wireVersion);
+    }
+}
@@ -0,0 +1,76 @@
+package Project;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * JMH version of GameRoomBench: the scoring function, and a whole round of answers going
+ * through a room's mailbox with the notices and scoreboard it broadcasts
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GameRoomJmh {
+
+    @Param({ "10", "100", "1000" })
+    private int players;
+
+    private long[] responseTimes = { 1200, 4999, 5001, 9000, 15000, 15001, 29000 };
+    private int next;
+    private int rounds;
+    private GameRoom room;
+    private ClientData[] members;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        System.setOut(new PrintStream(OutputStream.nullOutputStream())); // the game code logs every join and answer
+        Log.setLevel(Log.Level.OFF);
+        Path questions = BenchData.writeQuestions(Files.createTempDirectory("trivia-jmh"), 100_000);
+        QuestionBank.setDefaultPath(questions.toString());
+        GameRoom.setTimeTicks(false); // only the deadline timer, which never fires during an iteration
+        room = new GameRoom("jmh-" + players);
+        members = BenchData.fill(new Server(0), room, players);
+        room.startFirstRound();
+        BenchData.settle(room);
+        BenchData.drain(members);
+    }
+
+    @Benchmark
+    public int calculatePoints() {
+        next = (next + 1) % responseTimes.length;
+        return GameRoom.calculatePoints(responseTimes[next]);
+    }
+
+    // Every player answers, the round ends and the next one opens; per round, not per answer.
+    // A player answers once per round, so a new session starts after the fifth round ends the last one
+    @Benchmark
+    public long processAnswerRound() throws Exception {
+        for (ClientData member : members) {
+            room.processAnswer(member, "A"); // the generated questions always have the right answer first
+        }
+        if (++rounds % 5 == 0) {
+            room.startFirstRound();
+        }
+        BenchData.settle(room);
+        return BenchData.drain(members);
+    }
+}
@@ -0,0 +1,65 @@
+package Project;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * JMH version of QuestionBankBench: parsing questions.txt into the binary bank, opening it,
+ * and the room creation that follows
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class QuestionBankJmh {
+
+    @Param({ "100000", "1000000" })
+    private int questionCount;
+
+    private Path questions;
+    private Path binary;
+    private int rooms;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        Log.setLevel(Log.Level.OFF);
+        Path directory = Files.createTempDirectory("trivia-jmh");
+        questions = BenchData.writeQuestions(directory, questionCount);
+        binary = Files.createTempFile(directory, "bank", ".bin");
+        QuestionBank.setDefaultPath(questions.toString());
+    }
+
+    @Benchmark
+    public void build() throws Exception {
+        QuestionBank.build(questions, binary);
+    }
+
+    @Benchmark
+    public QuestionBank open() throws Exception {
+        return QuestionBank.open(questions);
+    }
+
+    @Benchmark
+    public GameRoom newGameRoom() {
+        return new GameRoom("room-" + rooms++);
+    }
+}
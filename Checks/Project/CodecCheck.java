@@ -0,0 +1,133 @@
+package Project;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Round-trips every Payload class through a frame under each wire version and compares
+ * every field of the decoded payload with the original, nested payloads included. Edge
+ * values (null and empty strings and arrays, non-ASCII text, negative and extreme numbers)
+ * are in the samples because that is where the varint and string encodings can go wrong.
+ */
+public class CodecCheck {
+    private static int failures;
+
+    private CodecCheck() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        List<Payload> samples = samples();
+        int checked = 0;
+        for (int version = Frames.VERSION_SERIALIZED; version <= Frames.CURRENT_VERSION; version++) {
+            for (Payload payload : samples) {
+                byte[] frame = Frames.encode(payload, version);
+                Payload decoded = Frames.decode(frame, Frames.HEADER_SIZE, frame.length - Frames.HEADER_SIZE, version);
+                compare("v" + version + " " + payload.getClass().getSimpleName() + " " + payload.getType(), payload, decoded);
+                checked++;
+            }
+        }
+        if (failures > 0) {
+            System.out.println("CodecCheck: " + failures + " mismatches in " + checked + " round trips");
+            System.exit(1);
+        }
+        System.out.println("CodecCheck: " + checked + " round trips, " + samples.size() + " payloads under "
+                + Frames.CURRENT_VERSION + " wire versions, all fields equal");
+    }
+
+    private static List<Payload> samples() {
+        List<Payload> samples = new ArrayList<>();
+        for (PayloadType type : PayloadType.values()) {
+            samples.add(new Payload("bob", "message for " + type, type));
+        }
+        samples.add(new Payload(null, null, PayloadType.DISCONNECT));
+        samples.add(new Payload("", "", PayloadType.MESSAGE));
+        samples.add(new Payload("zo\u00eb", "h\u00e9llo \u4e16\u754c \ud83c\udfb2", PayloadType.MESSAGE));
+
+        QAPayload question = new QAPayload("Server", "New Question", PayloadType.QUESTION,
+                "Which planet is known as the Red Planet?", new String[] { "Earth", "Mars", "Venus", "Jupiter" });
+        question.setDeadline(System.currentTimeMillis() + 30000);
+        samples.add(question);
+        samples.add(new QAPayload("bob", "answer", PayloadType.ANSWER, null, new String[] { "Mars" }));
+        samples.add(new QAPayload("bob", "none", PayloadType.QUESTION, "", null));
+        QAPayload negative = new QAPayload("Server", "empty", PayloadType.QUESTION, "?", new String[0]);
+        negative.setDeadline(Long.MIN_VALUE);
+        samples.add(negative);
+
+        samples.add(new TimePayload("Server", "Time Update", PayloadType.TIME, 17000));
+        samples.add(new TimePayload("Server", "Time Update", PayloadType.TIME, -1));
+        samples.add(new TimePayload("Server", "Time Update", PayloadType.QUESTION_TIMER, Long.MAX_VALUE));
+
+        samples.add(new PointsPayload("bob", "Points", PayloadType.POINTS, 20));
+        samples.add(new PointsPayload("bob", "Points", PayloadType.POINTS, Integer.MIN_VALUE));
+        samples.add(new PointsPayload("bob", "Reset", PayloadType.RESET_POINTS, 0));
+
+        samples.add(new ClockPayload("bob", "sync", PayloadType.CLOCK_SYNC, System.currentTimeMillis(), 0));
+        samples.add(new ClockPayload("Server", "sync", PayloadType.CLOCK_SYNC, Long.MIN_VALUE, Long.MAX_VALUE));
+
+        ScoreboardPayload board = new ScoreboardPayload("Server", "Points Update", PayloadType.SCOREBOARD, false,
+                new String[] { "alice", "bob", "zo\u00eb" }, new int[] { 40, 40, -5 }, new int[] { 1, 1, 3 }, new String[0]);
+        samples.add(board);
+        samples.add(new ScoreboardPayload("Server", "Points Update", PayloadType.SCOREBOARD, true,
+                new String[] { "carl" }, new int[] { Integer.MAX_VALUE }, new int[] { 1 }, new String[] { "dave", "" }));
+        samples.add(new ScoreboardPayload("Server", "Final Score", PayloadType.SCOREBOARD, false,
+                new String[0], new int[0], new int[0], new String[0]));
+
+        // The board inside ROOM_STATE carries no sender, message or type of its own on version 2;
+        // it decodes with the outer payload's and SCOREBOARD, so the samples are built that way
+        samples.add(new RoomStatePayload("Server", "Room1", PayloadType.ROOM_STATE, 12, RoomStatePayload.Phase.QUESTION,
+                question.getQuestion(), question.getAnswerOptions(), question.getDeadline(), 17000,
+                new ScoreboardPayload("Server", "Room1", PayloadType.SCOREBOARD, false, board.getNames(),
+                        board.getScores(), board.getRanks(), new String[0]),
+                new String[] { "alice" }, 3, 1));
+        samples.add(new RoomStatePayload("Server", "Lobby", PayloadType.ROOM_STATE, 0, RoomStatePayload.Phase.WAITING,
+                null, null, 0, 0, new ScoreboardPayload("Server", "Lobby", PayloadType.SCOREBOARD, false,
+                        new String[0], new int[0], new int[0], new String[0]),
+                new String[0], 70000, 0));
+
+        samples.add(new ResumePayload("bob", "resume", PayloadType.RESUME, "3f2a9c", 1234567890123L));
+        samples.add(new ResumePayload("Server", "expired", PayloadType.RESUME, null, 0));
+
+        samples.add(new ConnectionPayload("bob", "joined", PayloadType.JOIN_ROOM, "Room1"));
+        samples.add(new ConnectionPayload("bob", "left", PayloadType.DISCONNECT, null));
+        return samples;
+    }
+
+    // Compare every instance field declared along the class chain, descending into nested payloads
+    private static void compare(String label, Object expected, Object actual) throws IllegalAccessException {
+        if (expected == null || actual == null || expected.getClass() != actual.getClass()) {
+            if (expected != actual) {
+                fail(label, "expected " + describe(expected) + " but decoded " + describe(actual));
+            }
+            return;
+        }
+        for (Class<?> type = expected.getClass(); type != Object.class; type = type.getSuperclass()) {
+            for (Field field : type.getDeclaredFields()) {
+                if (Modifier.isStatic(field.getModifiers())) {
+                    continue;
+                }
+                field.setAccessible(true);
+                Object want = field.get(expected);
+                Object got = field.get(actual);
+                if (want instanceof Payload) {
+                    compare(label + " ." + field.getName(), want, got);
+                } else if (!Objects.deepEquals(want, got)) {
+                    fail(label, field.getName() + ": expected " + describe(want) + " but decoded " + describe(got));
+                }
+            }
+        }
+    }
+
+    private static String describe(Object value) {
+        return value instanceof Object[] ? Arrays.deepToString((Object[]) value)
+                : value instanceof int[] ? Arrays.toString((int[]) value) : String.valueOf(value);
+    }
+
+    private static void fail(String label, String detail) {
+        failures++;
+        System.out.println("FAIL " + label + ": " + detail);
+    }
+}
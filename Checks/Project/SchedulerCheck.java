@@ -0,0 +1,69 @@
+package Project;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Starts a round in 10,000 rooms with per-second TIME ticks on, lets the ticks run for a few
+ * seconds and checks that every room's timers share the GameScheduler's few threads and still
+ * run on time. Before the shared scheduler each room held a java.util.Timer thread of its own.
+ * Arguments: [rooms] [seconds], 10000 and 5 by default.
+ */
+public class SchedulerCheck {
+    private static final long LAG_P99_BUDGET_MILLIS = 250; // the answer ack budget BotSwarm uses
+
+    private SchedulerCheck() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int roomCount = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        Log.setLevel(Log.Level.WARN);
+        GameRoom.setTimeTicks(true);
+        int threadsBefore = ManagementFactory.getThreadMXBean().getThreadCount();
+
+        GameRoom[] rooms = new GameRoom[roomCount];
+        for (int i = 0; i < roomCount; i++) {
+            rooms[i] = new GameRoom("check-" + i);
+            rooms[i].startFirstRound();
+        }
+        // Starting the rooms competes with their first ticks, so only the steady state after that is measured
+        Thread.sleep(1000);
+        LatencyHistogram lag = Metrics.getRoundTimerLag();
+        lag.reset();
+        Thread.sleep(seconds * 1000L);
+
+        int threads = ManagementFactory.getThreadMXBean().getThreadCount();
+        int timerThreads = 0;
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (thread.getName().startsWith("game-timer-")) {
+                timerThreads++;
+            }
+        }
+        long expectedTicks = (long) roomCount * seconds;
+        double p99Millis = lag.getValueAtPercentile(99) / 1e6;
+        System.out.printf("SchedulerCheck: %d rooms, %d ticks in %ds (%d expected), %d timer threads, %d threads"
+                + " (%d before the rooms), lag p50 %.2fms p99 %.2fms max %.2fms%n", roomCount, lag.getCount(), seconds,
+                expectedTicks, timerThreads, threads, threadsBefore, lag.getValueAtPercentile(50) / 1e6, p99Millis,
+                lag.getMax() / 1e6);
+
+        boolean passed = true;
+        int timerLimit = Math.max(2, Runtime.getRuntime().availableProcessors() / 2);
+        if (timerThreads == 0 || timerThreads > timerLimit) {
+            System.out.println("FAIL expected 1 to " + timerLimit + " game-timer threads, found " + timerThreads);
+            passed = false;
+        }
+        if (threads - threadsBefore >= roomCount / 100) {
+            System.out.println("FAIL the rooms added " + (threads - threadsBefore) + " threads");
+            passed = false;
+        }
+        if (lag.getCount() < expectedTicks * 9 / 10) {
+            System.out.println("FAIL only " + lag.getCount() + " of about " + expectedTicks + " ticks ran");
+            passed = false;
+        }
+        if (p99Millis > LAG_P99_BUDGET_MILLIS) {
+            System.out.println("FAIL timer lag p99 " + p99Millis + "ms is over " + LAG_P99_BUDGET_MILLIS + "ms");
+            passed = false;
+        }
+        System.exit(passed ? 0 : 1); // the rooms' timers keep running otherwise
+    }
+}
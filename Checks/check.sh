@@ -0,0 +1,10 @@
+#!/bin/sh
+# Builds the server sources together with the checks and runs every check; exits non-zero if one fails.
+# Usage: Checks/check.sh
+set -e
+cd "$(dirname "$0")/.."
+mkdir -p Checks/out
+find Project Checks/Project -name "*.java" > Checks/out/sources.txt
+javac -d Checks/out @Checks/out/sources.txt
+java -cp Checks/out Project.CodecCheck
+java -cp Checks/out Project.SchedulerCheck
@@ -1,8 +1,10 @@
 package Project;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.IOException;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
 import java.net.Socket;
 
 /**
@@ -11,7 +13,8 @@ import java.net.Socket;
 public abstract class BaseServerThread extends Thread {
     
     protected boolean isRunning = false; // control variable to stop this thread
-    protected ObjectOutputStream out; // exposed here for send()
+    protected DataOutputStream out; // exposed here for send()
+    protected int wireVersion = Frames.CURRENT_VERSION; // agreed with the client in the handshake
     protected Socket client; // communication directly to "my" client
     
     /**
@@ -44,8 +47,7 @@ public abstract class BaseServerThread extends Thread {
             return true;
         }
         try {
-            out.writeObject(payload);
-            out.flush();
+            Frames.write(out, payload, wireVersion);
             return true;
         } catch (IOException e) {
             info("Error sending message to client (most likely disconnected)");
@@ -69,46 +71,41 @@ public abstract class BaseServerThread extends Thread {
     @Override
     public void run() {
         info("Thread starting");
-        try (ObjectOutputStream out = new ObjectOutputStream(client.getOutputStream());
-                ObjectInputStream in = new ObjectInputStream(client.getInputStream());) {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(client.getOutputStream()));
+                DataInputStream in = new DataInputStream(new BufferedInputStream(client.getInputStream()));) {
             this.out = out;
+            wireVersion = Frames.serverHello(in, out, Frames.CURRENT_VERSION);
             isRunning = true;
             //onInitialized();
             Payload fromClient;
             /**
              * isRunning is a flag to let us manage the loop exit condition
-             * fromClient (in.readObject()) is a blocking method that waits until data is received
-             *  - null would likely mean a disconnect so we use a "set and check" logic to alternatively exit the loop
+             * fromClient (Frames.read()) is a blocking method that waits until a whole frame is received
+             *  - a disconnect surfaces as an EOFException, a null is still treated as a clean break
              */
             while (isRunning) {
                 try{
-                    fromClient = (Payload) in.readObject(); // blocking method
+                    fromClient = Frames.read(in, wireVersion); // blocking method
                     if (fromClient != null) {
-                        info("Received from my client: " + fromClient);
+                        Log.debug(Log.Category.NET, "Received from my client: {}", fromClient); // formatted only when enabled
                         processPayload(fromClient);
                     }
                     else{
                         throw new IOException("Connection interrupted"); // Specific exception for a clean break
                     }
                 }
-                catch (ClassCastException | ClassNotFoundException cce) {
-                    System.err.println("Error reading object as specified type: " + cce.getMessage());
-                    cce.printStackTrace();
-                }
                 catch (IOException e) {
                     if (Thread.currentThread().isInterrupted()) {
                         info("Thread interrupted during read (likely from the disconnect() method)");
                         break;
                     }
-                    info("IO exception while reading from client");
-                    e.printStackTrace();
+                    Log.warn(Log.Category.NET, "IO exception while reading from client: {}", e.getMessage());
                     break;
                 }
             } // close while loop
         } catch (Exception e) {
             // happens when client disconnects
-            info("General Exception");
-            e.printStackTrace();
+            Log.warn(Log.Category.NET, "General Exception: {}", e.toString());
             info("My Client disconnected");
         } finally {
             isRunning = false;
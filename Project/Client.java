@@ -1,18 +1,32 @@
 package Project;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.IOException;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
 import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import javax.swing.SwingUtilities;
 
 public class Client {
+    private static boolean useVirtualThreads; // Run the ServerListener on a virtual thread
+    private static final int RESUME_ATTEMPTS = 10; // Reconnect attempts after the connection drops
+    private static final long RESUME_RETRY_DELAY = 2000; // Milliseconds between reconnect attempts
     private String clientId;
     private Socket socket;
-    private ObjectOutputStream out;
-    private ObjectInputStream in;
+    private DataOutputStream out;
+    private DataInputStream in;
+    private int wireVersion; // Agreed with the server when connecting
+    private String host;
+    private int port;
+    private String resumeToken; // Given by the server at CONNECT, lets a dropped connection resume the session
+    private long receivedCount; // Frames received this session, RESUME frames excepted; the server numbers them the same way
+    private volatile long clockOffset; // Server clock minus local clock, measured at CONNECT
+    private volatile boolean clockSynced; // True once the server answered the clock sample
     private Map<String, Integer> playerPoints; // Map to store player points
     private GameUI gameUI; // Reference to GameUI
 
@@ -39,13 +53,14 @@ public class Client {
             System.out.println("Please set your name first.");
         } else {
             try {
-                socket = new Socket(host, port);
-                out = new ObjectOutputStream(socket.getOutputStream());
-                in = new ObjectInputStream(socket.getInputStream());
+                this.host = host;
+                this.port = port;
+                openSocket();
                 playerPoints = new HashMap<>(); // Initialize the player points map
                 System.out.println("Connected to server at " + host + ":" + port);
-                new Thread(new ServerListener()).start(); // Start listening to server messages
-                Payload payload = new Payload(clientId, "Connecting", PayloadType.CONNECT);
+                Threads.start("server-listener", new ServerListener(), useVirtualThreads); // Start listening to server messages
+                // CONNECT carries a clock sample, the CLOCK_SYNC answer gives the offset to the server clock
+                Payload payload = new ClockPayload(clientId, "Connecting", PayloadType.CONNECT, System.currentTimeMillis(), 0);
                 sendPayload(payload);
             } catch (IOException e) {
                 System.err.println("Unable to connect to server: " + e.getMessage());
@@ -53,6 +68,54 @@ public class Client {
         }
     }
 
+    // Method to open the socket and agree on the wire version
+    private synchronized void openSocket() throws IOException {
+        socket = new Socket(host, port);
+        out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+        in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+        wireVersion = Frames.clientHello(out, in, Frames.CURRENT_VERSION);
+    }
+
+    // Method to reconnect after the connection dropped and ask the server to resume the session
+    private boolean resume() {
+        if (resumeToken == null) {
+            return false;
+        }
+        for (int attempt = 1; attempt <= RESUME_ATTEMPTS; attempt++) {
+            try {
+                Thread.sleep(RESUME_RETRY_DELAY);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+            try {
+                openSocket();
+                sendPayload(new ResumePayload(clientId, "Resume", PayloadType.RESUME, resumeToken, receivedCount));
+                System.out.println("Reconnected, resuming after message " + receivedCount);
+                return true;
+            } catch (IOException e) {
+                System.err.println("Reconnect attempt " + attempt + " failed: " + e.getMessage());
+            }
+        }
+        return false;
+    }
+
+    // Method to handle the server's RESUME replies: a new token, a resumed session or an expired one
+    private void handleResume(ResumePayload resume) {
+        if (resume.getToken() != null) {
+            resumeToken = resume.getToken();
+            return;
+        }
+        // The server no longer holds the session, start a new one in the Lobby
+        System.out.println("Session expired, connecting again");
+        resumeToken = null;
+        receivedCount = 0;
+        playerPoints.clear();
+        GameUI.resetPlayerPoints();
+        GameUI.displayNotification("Connection lost for too long, please join a room again.");
+        sendPayload(new ClockPayload(clientId, "Connecting", PayloadType.CONNECT, System.currentTimeMillis(), 0));
+    }
+
     // Method to create a room
     public void createRoom(String roomName) {
         if (roomName == null || roomName.isEmpty()) {
@@ -111,11 +174,10 @@ public class Client {
         Payload payload = new Payload(clientId, selectedCategories.toString(), PayloadType.SELECTED_CATEGORIES);
         sendPayload(payload);
     }
-    // Method to send a payload to the server
-    private void sendPayload(Payload payload) {
+    // Method to send a payload to the server; the UI and the listener (when resuming) both send
+    private synchronized void sendPayload(Payload payload) {
         try {
-            out.writeObject(payload);
-            out.flush();
+            Frames.write(out, payload, wireVersion);
         } catch (IOException e) {
             System.err.println("Error sending payload: " + e.getMessage());
         }
@@ -125,24 +187,44 @@ public class Client {
     private class ServerListener implements Runnable {
         @Override
         public void run() {
+            do {
+                readUntilDisconnected();
+            } while (resume());
+        }
+
+        private void readUntilDisconnected() {
             try {
-                Object response;
-                while ((response = in.readObject()) != null) {
+                Payload response;
+                while ((response = Frames.read(in, wireVersion)) != null) {
+                    if (response instanceof ResumePayload) {
+                        handleResume((ResumePayload) response);
+                        continue;
+                    }
+                    receivedCount++; // same numbering as the server's ReplayBuffer
                     if (response instanceof QAPayload) {
                         QAPayload qaPayload = (QAPayload) response;
                         GameUI.updateQuestion(qaPayload.getQuestion(), qaPayload.getAnswerOptions());
+                        if (qaPayload.getDeadline() > 0 && clockSynced) {
+                            // Render the countdown locally instead of relying on per-second TIME ticks
+                            GameUI.startCountdownTo(qaPayload.getDeadline() - clockOffset);
+                        }
+                    } else if (response instanceof ClockPayload) {
+                        handleClockSync((ClockPayload) response);
+                    } else if (response instanceof RoomStatePayload) {
+                        applyRoomState((RoomStatePayload) response);
+                    } else if (response instanceof ScoreboardPayload) {
+                        applyScoreboard((ScoreboardPayload) response);
                     } else if (response instanceof PointsPayload) {
                         PointsPayload pointsPayload = (PointsPayload) response;
                         playerPoints.put(pointsPayload.getClientId(), pointsPayload.getPoints());
-                        GameUI.updatePlayerPoints(playerPoints);
+                        GameUI.updatePlayerPoints(pointsSnapshot());
                     }
                     else if (response instanceof TimePayload) {
-                            System.out.println("Received time payload");
                             TimePayload timePayload = (TimePayload) response;
                             GameUI.updateTimer((int) (timePayload.getTimeRemaining() / 1000));
                     
                     } else if (response instanceof Payload) {
-                        Payload payload = (Payload) response;
+                        Payload payload = response;
                         switch (payload.getType()) {
                             case RESET_POINTS:
                                 resetPlayerPoints();
@@ -159,15 +241,15 @@ public class Client {
                                 System.out.println("Successfully joined room: " + payload.getMessage());
                                 break;
                             case START_GAME:
-                                SwingUtilities.invokeLater(() -> gameUI.startCountdown()); // Start the countdown on the ready page
+                                gameUI.startCountdown(); // Start the countdown on the ready page
                                 break;
                             case QUESTION_TIMER:
                                 handleQuestionTimer(payload); // Handle question timer countdown
                                 break;
                             case READY:
                                 System.out.println("Player " + payload.getClientId() + " is ready.");
-                                SwingUtilities.invokeLater(() -> gameUI.updateToReadyCheckPanel());
-                                GameUI.showFinalScore(playerPoints);
+                                gameUI.updateToReadyCheckPanel();
+                                GameUI.showFinalScore(pointsSnapshot());
                                 break;
                             default:
                                 System.out.println(payload);
@@ -178,7 +260,7 @@ public class Client {
                         System.out.println("Unknown response from server: " + response);
                     }
                 }
-            } catch (IOException | ClassNotFoundException e) {
+            } catch (IOException e) {
                 System.err.println("Connection to server lost: " + e.getMessage());
             }
         }
@@ -186,14 +268,60 @@ public class Client {
 
     // Method to handle the question timer countdown received from the server
     private void handleQuestionTimer(Payload payload) {
-        SwingUtilities.invokeLater(() -> {
-            try {
-                int timeRemaining = Integer.parseInt(payload.getMessage());
-                GameUI.updateTimer(timeRemaining);
-            } catch (NumberFormatException e) {
-                System.err.println("Invalid timer format: " + e.getMessage());
+        try {
+            int timeRemaining = Integer.parseInt(payload.getMessage());
+            GameUI.updateTimer(timeRemaining);
+        } catch (NumberFormatException e) {
+            System.err.println("Invalid timer format: " + e.getMessage());
+        }
+    }
+
+    // Method to work out the offset to the server clock, assuming the request and reply took equally long
+    private void handleClockSync(ClockPayload clockPayload) {
+        long now = System.currentTimeMillis();
+        long roundTrip = now - clockPayload.getClientTime();
+        clockOffset = clockPayload.getServerTime() + roundTrip / 2 - now;
+        clockSynced = true;
+        System.out.println("Clock synced with server, offset " + clockOffset + " ms, round trip " + roundTrip + " ms");
+    }
+
+    // Method to apply a full or delta scoreboard to the local points, then redraw once
+    private void applyScoreboard(ScoreboardPayload scoreboard) {
+        if (!scoreboard.isDelta()) {
+            playerPoints.clear();
+        }
+        for (String name : scoreboard.getRemoved()) {
+            playerPoints.remove(name);
+        }
+        String[] names = scoreboard.getNames();
+        int[] scores = scoreboard.getScores();
+        for (int i = 0; i < names.length; i++) {
+            playerPoints.put(names[i], scores[i]);
+        }
+        GameUI.updatePlayerPoints(pointsSnapshot());
+    }
+
+    // Method to copy the points for the UI, which reads them on the EDT while this thread keeps updating
+    private Map<String, Integer> pointsSnapshot() {
+        return Collections.unmodifiableMap(new HashMap<>(playerPoints));
+    }
+
+    // Method to catch up with a room on joining: scoreboard, who is ready and the open question
+    private void applyRoomState(RoomStatePayload state) {
+        applyScoreboard(state.getScoreboard());
+        System.out.println("Joined room " + state.getMessage() + " (" + state.getPhase() + ", "
+                + state.getReadyCount() + " of " + state.getMemberCount() + " ready, state version " + state.getVersion() + ")");
+        if (state.getPhase() == RoomStatePayload.Phase.WAITING) {
+            GameUI.updateReadyStatus(state.getReadyCount() + " of " + state.getMemberCount() + " players ready");
+        } else if (state.getPhase() == RoomStatePayload.Phase.QUESTION) {
+            gameUI.runInFrame(() -> gameUI.showPanel("GameArea"));
+            GameUI.updateQuestion(state.getQuestion(), state.getAnswerOptions());
+            if (clockSynced) {
+                GameUI.startCountdownTo(state.getDeadline() - clockOffset);
+            } else {
+                GameUI.updateTimer((int) (state.getTimeRemaining() / 1000));
             }
-        });
+        }
     }
 
     // Method to reset player points locally
@@ -209,6 +337,16 @@ public class Client {
 
     // Main method to start the client
     public static void main(String[] args) {
+        // Pull out --flags so host and port stay positional
+        List<String> positional = new ArrayList<>();
+        for (String arg : args) {
+            if (arg.equalsIgnoreCase("--virtual-threads")) {
+                useVirtualThreads = true;
+            } else {
+                positional.add(arg);
+            }
+        }
+        args = positional.toArray(new String[0]);
         final String host = (args.length > 0) ? args[0] : "localhost";
         final int port;
         if (args.length > 1) {
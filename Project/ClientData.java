@@ -2,7 +2,9 @@ package Project;
 
 public class ClientData {
     private String name;
-    private ServerThread serverThread;
+    private volatile ServerThread serverThread; // Replaced when the session resumes on a new connection
+    private String resumeToken; // Lets the player reconnect into this ClientData, null if sessions are off
+    private ReplayBuffer replayBuffer; // Recent payloads for a reconnecting player
     private boolean isAway;
     private int points;
 
@@ -42,6 +44,26 @@ public class ClientData {
         this.serverThread = serverThread;
     }
 
+    // Getter for the resume token
+    public String getResumeToken() {
+        return resumeToken;
+    }
+
+    // Setter for the resume token
+    public void setResumeToken(String resumeToken) {
+        this.resumeToken = resumeToken;
+    }
+
+    // Getter for the replay buffer
+    public ReplayBuffer getReplayBuffer() {
+        return replayBuffer;
+    }
+
+    // Setter for the replay buffer
+    public void setReplayBuffer(ReplayBuffer replayBuffer) {
+        this.replayBuffer = replayBuffer;
+    }
+
     // Getter for points
     public int getPoints() {
         return points;
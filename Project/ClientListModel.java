@@ -0,0 +1,224 @@
+package Project;
+
+import javax.swing.AbstractListModel;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * List model for the ServerUI client list, kept up to date from the server's client events
+ * instead of being rebuilt. Events may arrive on any thread; they are queued and applied on
+ * the EDT by flush(), which fires one added/changed/removed event per run of rows rather
+ * than per client, so a burst of connects costs the JList one layout. The filter shows only
+ * the clients whose name or room contains the search text.
+ */
+public class ClientListModel extends AbstractListModel<ClientListModel.Row> implements Server.ClientListener {
+    private static final int MAX_REMOVAL_EVENTS = 64; // past this a flush repaints the whole list instead
+
+    /**
+     * One connected client and the room it is in
+     */
+    public static class Row {
+        private final ClientData client;
+        private String roomName;
+        private String search; // lower-case name and room, matched against the filter
+        private int index = -1; // position in the visible rows, -1 while filtered out
+        private boolean disconnected;
+
+        Row(ClientData client, String roomName) {
+            this.client = client;
+            setRoomName(roomName);
+        }
+
+        private void setRoomName(String roomName) {
+            this.roomName = roomName;
+            this.search = (client.getName() + "\n" + roomName).toLowerCase(Locale.ROOT);
+        }
+
+        public ClientData getClient() {
+            return client;
+        }
+
+        public String getRoomName() {
+            return roomName;
+        }
+    }
+
+    private final ConcurrentLinkedQueue<Runnable> pending = new ConcurrentLinkedQueue<>();
+    private final Map<ClientData, Row> rows = new HashMap<>();
+    private final List<Row> all = new ArrayList<>();
+    private final List<Row> visible = new ArrayList<>();
+    private String filter = "";
+    private boolean needsCompaction; // a row disconnected or stopped matching since the last flush
+
+    @Override
+    public void clientConnected(ClientData client, String roomName) {
+        pending.add(() -> onConnected(client, roomName));
+    }
+
+    @Override
+    public void clientRoomChanged(ClientData client, String roomName) {
+        pending.add(() -> onRoomChanged(client, roomName));
+    }
+
+    @Override
+    public void clientDisconnected(ClientData client) {
+        pending.add(() -> onDisconnected(client));
+    }
+
+    @Override
+    public int getSize() {
+        return visible.size();
+    }
+
+    @Override
+    public Row getElementAt(int index) {
+        return visible.get(index);
+    }
+
+    // Getter for the number of clients, filtered out or not
+    public int getTotal() {
+        return all.size();
+    }
+
+    // Method to apply the queued events, call on the EDT; returns true if anything changed
+    public boolean flush() {
+        int oldSize = visible.size(); // what the JList knows about
+        boolean changed = false;
+        Runnable event;
+        while ((event = pending.poll()) != null) {
+            event.run();
+            changed = true;
+        }
+        if (!changed) {
+            return false;
+        }
+        int kept = needsCompaction ? compact(oldSize) : oldSize;
+        needsCompaction = false;
+        // Rows added or shown by this flush were appended after the old ones
+        if (kept < visible.size()) {
+            fireIntervalAdded(this, kept, visible.size() - 1);
+        }
+        return true;
+    }
+
+    // Method to show only the clients whose name or room contains `text`, call on the EDT
+    public void setFilter(String text) {
+        String normalized = text == null ? "" : text.trim().toLowerCase(Locale.ROOT);
+        if (normalized.equals(filter)) {
+            return;
+        }
+        filter = normalized;
+        int oldSize = visible.size();
+        for (Row row : visible) {
+            row.index = -1;
+        }
+        visible.clear();
+        for (Row row : all) {
+            if (matches(row)) {
+                row.index = visible.size();
+                visible.add(row);
+            }
+        }
+        if (oldSize > 0) {
+            fireIntervalRemoved(this, 0, oldSize - 1);
+        }
+        if (!visible.isEmpty()) {
+            fireIntervalAdded(this, 0, visible.size() - 1);
+        }
+    }
+
+    private void onConnected(ClientData client, String roomName) {
+        if (rows.containsKey(client)) {
+            onRoomChanged(client, roomName);
+            return;
+        }
+        Row row = new Row(client, roomName);
+        rows.put(client, row);
+        all.add(row);
+        show(row);
+    }
+
+    private void onRoomChanged(ClientData client, String roomName) {
+        Row row = rows.get(client);
+        if (row == null) {
+            return; // Disconnected before this event was applied
+        }
+        row.setRoomName(roomName);
+        if (row.index < 0) {
+            show(row);
+        } else if (matches(row)) {
+            fireContentsChanged(this, row.index, row.index);
+        } else {
+            needsCompaction = true;
+        }
+    }
+
+    private void onDisconnected(ClientData client) {
+        Row row = rows.remove(client);
+        if (row != null) {
+            row.disconnected = true;
+            needsCompaction = true;
+        }
+    }
+
+    // Append a row to the visible rows if it passes the filter
+    private void show(Row row) {
+        if (matches(row)) {
+            row.index = visible.size();
+            visible.add(row);
+        }
+    }
+
+    private boolean matches(Row row) {
+        return filter.isEmpty() || row.search.contains(filter);
+    }
+
+    // Drop disconnected rows and rows the filter now hides in one pass, tell the JList which of the
+    // `oldSize` rows it knew about went away, and return how many of those are left
+    private int compact(int oldSize) {
+        if (all.size() > rows.size()) {
+            all.removeIf(row -> row.disconnected);
+        }
+        List<int[]> runs = new ArrayList<>(); // [first, last] of each run of removed old rows
+        int removedOld = 0;
+        int write = 0;
+        for (int read = 0; read < visible.size(); read++) {
+            Row row = visible.get(read);
+            if (row.disconnected || !matches(row)) {
+                row.index = -1;
+                if (read < oldSize) {
+                    removedOld++;
+                    int[] last = runs.isEmpty() ? null : runs.get(runs.size() - 1);
+                    if (last != null && last[1] == read - 1) {
+                        last[1] = read;
+                    } else {
+                        runs.add(new int[] { read, read });
+                    }
+                }
+            } else {
+                row.index = write;
+                visible.set(write++, row);
+            }
+        }
+        visible.subList(write, visible.size()).clear();
+        int kept = oldSize - removedOld;
+        if (runs.size() > MAX_REMOVAL_EVENTS) {
+            // Cheaper for the JList to lay out the list once than to shift it run by run
+            fireIntervalRemoved(this, 0, oldSize - 1);
+            if (kept > 0) {
+                fireIntervalAdded(this, 0, kept - 1);
+            }
+            return kept;
+        }
+        int shift = 0;
+        for (int[] run : runs) {
+            fireIntervalRemoved(this, run[0] - shift, run[1] - shift);
+            shift += run[1] - run[0] + 1;
+        }
+        return kept;
+    }
+}
@@ -0,0 +1,34 @@
+package Project;
+
+// ClockPayload.java - NTP-style clock sample exchanged at CONNECT
+public class ClockPayload extends Payload {
+    private long clientTime; // Client clock when the request was sent
+    private long serverTime; // Server clock when the request was answered, 0 in the request
+
+    public ClockPayload(String clientId, String message, PayloadType type, long clientTime, long serverTime) {
+        super(clientId, message, type);
+        this.clientTime = clientTime;
+        this.serverTime = serverTime;
+    }
+
+    public long getClientTime() {
+        return clientTime;
+    }
+
+    public void setClientTime(long clientTime) {
+        this.clientTime = clientTime;
+    }
+
+    public long getServerTime() {
+        return serverTime;
+    }
+
+    public void setServerTime(long serverTime) {
+        this.serverTime = serverTime;
+    }
+
+    @Override
+    public String toString() {
+        return "ClockPayload [clientId=" + getClientId() + ", message=" + getMessage() + ", type=" + getType() + ", clientTime=" + clientTime + ", serverTime=" + serverTime + "]";
+    }
+}
@@ -0,0 +1,40 @@
+package Project;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A payload encoded at most once per wire version. Room broadcasts wrap the payload once
+ * and hand the same frame bytes to every recipient instead of re-encoding per socket.
+ * The frame arrays are shared, so nothing may modify them after they are built.
+ */
+public class EncodedPayload {
+    private final Payload payload;
+    private final AtomicReferenceArray<byte[]> frames = new AtomicReferenceArray<>(Frames.CURRENT_VERSION + 1);
+
+    // Constructor
+    public EncodedPayload(Payload payload) {
+        this.payload = payload;
+    }
+
+    // Getter for the payload being sent
+    public Payload getPayload() {
+        return payload;
+    }
+
+    // Getter for the payload type
+    public PayloadType getType() {
+        return payload.getType();
+    }
+
+    // Method to get the complete frame for a wire version, encoding it on first use
+    public byte[] frame(int version) throws IOException {
+        byte[] frame = frames.get(version);
+        if (frame == null) {
+            // Two threads may race to encode, both produce identical bytes so either result is fine
+            frame = Frames.encode(payload, version);
+            frames.compareAndSet(version, null, frame);
+        }
+        return frame;
+    }
+}
@@ -0,0 +1,77 @@
+package Project;
+
+import javax.swing.AbstractListModel;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+
+/**
+ * List model for the game event log that keeps only the last `capacity` events in a ring
+ * buffer. append() only queues the message and flush() moves everything queued into the
+ * ring, so however many events arrive within a display frame they reach the JList with at
+ * most one removed and one added event. Both are called on the EDT, by the GameUI's UiEventQueue.
+ */
+public class EventLogModel extends AbstractListModel<String> {
+    private final String[] ring;
+    private int head; // index of the oldest event
+    private int size;
+    private final ArrayDeque<String> pending = new ArrayDeque<>();
+
+    // Constructor
+    public EventLogModel(int capacity) {
+        this.ring = new String[capacity];
+    }
+
+    // Method to add an event, shown by the next flush
+    public void append(String message) {
+        pending.add(message);
+    }
+
+    @Override
+    public int getSize() {
+        return size;
+    }
+
+    @Override
+    public String getElementAt(int index) {
+        return ring[(head + index) % ring.length];
+    }
+
+    // Method to drop every event, call on the EDT
+    public void clear() {
+        int oldSize = size;
+        head = 0;
+        size = 0;
+        Arrays.fill(ring, null);
+        if (oldSize > 0) {
+            fireIntervalRemoved(this, 0, oldSize - 1);
+        }
+    }
+
+    // Method to move the queued events into the ring
+    public void flush() {
+        int added = 0;
+        int evicted = 0;
+        String message;
+        while ((message = pending.poll()) != null) {
+            if (size == ring.length) {
+                ring[head] = message; // overwrite the oldest event
+                head = (head + 1) % ring.length;
+                evicted++;
+            } else {
+                ring[(head + size) % ring.length] = message;
+                size++;
+            }
+            added++;
+        }
+        if (added == 0) {
+            return;
+        }
+        int oldSize = size - added + evicted;
+        evicted = Math.min(evicted, oldSize); // events added and evicted in the same flush were never shown
+        if (evicted > 0) {
+            fireIntervalRemoved(this, 0, evicted - 1);
+        }
+        int firstNew = oldSize - evicted;
+        fireIntervalAdded(this, firstNew, size - 1);
+    }
+}
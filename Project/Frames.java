@@ -0,0 +1,139 @@
+package Project;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+/**
+ * Length-prefixed framing shared by the blocking server, the NIO server and the Client.
+ * A frame is a 4 byte big-endian body length followed by the body. Every body is
+ * self-contained so it can be decoded without any stream state from earlier frames,
+ * which is what lets the NIO event loops decode from a plain ByteBuffer.
+ *
+ * The body encoding is negotiated once per connection: the client opens with
+ * HELLO_MAGIC and the highest version it speaks, the server answers with one byte
+ * holding the version both sides will use. Version 1 only keeps Java serialization as the
+ * body encoding; it is still framed and behind the hello, so a peer that predates framing
+ * and talks raw object streams cannot connect with either version.
+ */
+public class Frames {
+    public static final int HEADER_SIZE = 4;
+    public static final int MAX_FRAME_SIZE = 1 << 20; // 1 MB, anything larger is treated as a corrupt stream
+
+    public static final int VERSION_SERIALIZED = 1; // Java serialization of the Payload object
+    public static final int VERSION_BINARY = 2; // PayloadCodec
+    public static final int CURRENT_VERSION = VERSION_BINARY;
+
+    public static final int HELLO_MAGIC = 0x5451; // "TQ"
+    public static final int HELLO_SIZE = 3; // magic (2 bytes) + version (1 byte)
+
+    private Frames() {
+    }
+
+    // Method to encode a payload into a complete frame (header + body)
+    public static byte[] encode(Payload payload, int version) throws IOException {
+        byte[] frame;
+        if (version == VERSION_BINARY) {
+            frame = PayloadCodec.encode(payload, HEADER_SIZE);
+        } else {
+            frame = serialize(payload);
+        }
+        writeLength(frame, frame.length - HEADER_SIZE);
+        return frame;
+    }
+
+    // Method to decode a frame body back into a payload
+    public static Payload decode(byte[] body, int offset, int length, int version) throws IOException {
+        if (version == VERSION_BINARY) {
+            return PayloadCodec.decode(body, offset, length);
+        }
+        return deserialize(body, offset, length);
+    }
+
+    // Method to write a payload as a frame and flush it
+    public static void write(DataOutputStream out, Payload payload, int version) throws IOException {
+        out.write(encode(payload, version));
+        out.flush();
+    }
+
+    // Method to read the next frame from a blocking stream (throws EOFException on disconnect)
+    public static Payload read(DataInputStream in, int version) throws IOException {
+        int length = in.readInt();
+        checkLength(length);
+        byte[] body = new byte[length];
+        in.readFully(body);
+        return decode(body, 0, length, version);
+    }
+
+    // Method to validate a frame length read off the wire
+    public static void checkLength(int length) throws IOException {
+        if (length < 0 || length > MAX_FRAME_SIZE) {
+            throw new IOException("Invalid frame length: " + length);
+        }
+    }
+
+    // Client side of the handshake: offer a version and return the one the server picked
+    public static int clientHello(DataOutputStream out, DataInputStream in, int version) throws IOException {
+        out.writeShort(HELLO_MAGIC);
+        out.writeByte(version);
+        out.flush();
+        int agreed = in.readUnsignedByte();
+        if (agreed < VERSION_SERIALIZED || agreed > version) {
+            throw new IOException("Server picked unsupported wire version " + agreed);
+        }
+        return agreed;
+    }
+
+    // Server side of the handshake: read the client's offer and reply with the agreed version
+    public static int serverHello(DataInputStream in, DataOutputStream out, int maxVersion) throws IOException {
+        int magic = in.readUnsignedShort();
+        int offered = in.readUnsignedByte();
+        int agreed = negotiate(magic, offered, maxVersion);
+        out.writeByte(agreed);
+        out.flush();
+        return agreed;
+    }
+
+    // Method to pick the wire version for a client hello, shared with the NIO server
+    public static int negotiate(int magic, int offered, int maxVersion) throws IOException {
+        if (magic != HELLO_MAGIC) {
+            throw new IOException("Bad handshake from client");
+        }
+        if (offered < VERSION_SERIALIZED) {
+            throw new IOException("Client offered unsupported wire version " + offered);
+        }
+        return Math.min(offered, maxVersion);
+    }
+
+    private static byte[] serialize(Payload payload) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        bytes.write(new byte[HEADER_SIZE]); // reserve room for the length
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(payload);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static Payload deserialize(byte[] body, int offset, int length) throws IOException {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(body, offset, length))) {
+            Object value = in.readObject();
+            if (!(value instanceof Payload)) {
+                throw new IOException("Frame did not contain a Payload: " + value);
+            }
+            return (Payload) value;
+        } catch (ClassNotFoundException e) {
+            throw new IOException("Unknown class in frame: " + e.getMessage(), e);
+        }
+    }
+
+    private static void writeLength(byte[] frame, int length) {
+        frame[0] = (byte) (length >>> 24);
+        frame[1] = (byte) (length >>> 16);
+        frame[2] = (byte) (length >>> 8);
+        frame[3] = (byte) length;
+    }
+}
@@ -1,137 +1,165 @@
 package Project;
 
-import java.io.BufferedReader;
-import java.io.FileReader;
-import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
-import java.util.Timer;
-import java.util.TimerTask;
-
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A trivia room. Room state is owned by the room's RoomMailbox: the public methods post to it
+ * and return, and timer callbacks post to it as well, so everything below runs one task at a
+ * time and needs no locks. Only the member list and gameStarted are read from other threads.
+ */
 public class GameRoom {
+    static final long ROUND_DURATION = 30000; // 30 seconds per question
+    public static final String LOBBY = "Lobby";
+    // Joining snapshots carry at most this many scoreboard rows and ready names, later deltas fill in the rest
+    static final int SNAPSHOT_LIMIT = 100;
+    private static final long TICK_INTERVAL = 1000; // TIME update every second
+    // When false the server sends no TIME ticks and clients count down to the question deadline locally
+    private static volatile boolean timeTicks = true;
+    private static volatile ScoreHistory scoreHistory; // Where final scoreboards are kept, null to keep none
+    private static volatile RoomJournal roomJournal; // Where state changes are journaled, null to journal none
+
     private String roomName;
-    private List<Question> questionList;
-    private List<ClientData> clients;
-    private List<ClientData> readyClients; // Track clients who are ready
+    private final RoomMailbox mailbox; // Serializes every change to this room's state
+    private final QuestionBank questionBank; // Shared, memory-mapped questions
+    private QuestionDeck questionDeck; // Questions not yet asked this session, drawn from the shared QuestionBank
+    // Room members as a copy-on-write array: joins and leaves copy, broadcasts iterate lock-free
+    private final CopyOnWriteArrayList<ClientData> clients;
+    // Every member holds a dense slot in this room; per-player round state is one bit per slot
+    private ClientData[] slots = new ClientData[16];
+    private int slotLimit; // slots at or past this index have never been used
+    // Each member's slot, owned by this room's mailbox; a client moving between rooms is in two of these at once
+    private final Map<ClientData, Integer> slotIndex = new IdentityHashMap<>();
+    private int[] freeSlots = new int[16]; // released slots, reused before slotLimit grows
+    private int freeCount;
+    private int[] sentScores = new int[16]; // Each slot's score on the last delta scoreboard
+    private int[] sentRanks = new int[16]; // Each slot's rank on the last delta scoreboard, 0 if it was not on it
+    private final List<String> departed = new ArrayList<>(); // Players on the last delta scoreboard who left since
+    private final SlotBitSet readyClients = new SlotBitSet(16); // Track clients who are ready
     private int currentRound;
     private Question currentQuestion;
-    private Timer roundTimer;
-    private List<ClientData> answeredClients; // Track clients who answered
+    private ScheduledFuture<?> countdownTask; // Pending "Game starts in" countdown on the shared GameScheduler
+    private ScheduledFuture<?> roundTask; // Tick and deadline task for the open round
+    private long roundSequence; // Source of round tokens
+    private long openRound; // Token of the round accepting answers, 0 when none
+    private final SlotBitSet answeredClients = new SlotBitSet(16); // Track clients who answered
     private long questionStartTime; // Track when the current question was broadcasted
-    private boolean gameStarted; // Track if the game has started
+    private long roundDeadline; // Server clock time the current question closes
+    private volatile boolean gameStarted; // Track if the game has started, read by the Server outside the mailbox
+    private ClientData owner; // Client who created the room, null for the Lobby
+    private long stateVersion; // Bumped on every change a RoomStatePayload would show
+    private Map<String, Integer> restoredPoints; // Points recovered from the journal, handed back as players rejoin
 
     // Constructor
     public GameRoom(String roomName) {
         this.roomName = roomName;
-        this.clients = new ArrayList<>();
-        this.readyClients = new ArrayList<>();
-        this.questionList = new ArrayList<>();
-        this.answeredClients = new ArrayList<>();
+        this.mailbox = new RoomMailbox(roomName);
+        this.clients = new CopyOnWriteArrayList<>();
+        this.questionBank = QuestionBank.getDefault();
+        this.questionDeck = new QuestionDeck(questionBank);
         this.currentRound = 0;
-        this.roundTimer = new Timer();
         this.gameStarted = false; // Initialize gameStarted to false
-        // Load questions with hardcoded path
-        loadQuestions("Project/questions.txt");
-    }
-
-    // Method to load questions from a file
-    public void loadQuestions(String filePath) {
-        questionList.clear(); // Clear any previous questions
-        try (BufferedReader reader = new BufferedReader(new FileReader(filePath))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                String[] parts = line.split(";", 4);
-                if (parts.length == 4) {
-                    String questionText = parts[0];
-                    String category = parts[1];
-                    String[] answers = parts[2].split(",");
-                    String correctAnswer = parts[3];
-                    Question question = new Question(questionText, category, Arrays.asList(answers), correctAnswer);
-                    questionList.add(question);
-                    System.out.println("Loaded question: " + questionText); // Debug message
-                } else {
-                    System.out.println("Invalid question format: " + line); // Debug message for incorrect format
-                }
-            }
-            System.out.println("Total questions loaded: " + questionList.size()); // Debug message
-        } catch (IOException e) {
-            System.err.println("Error loading questions: " + e.getMessage());
-        }
     }
 
     // Method to mark a client as ready
     public void markClientReady(ClientData client) {
-        if (!readyClients.contains(client)) {
-            readyClients.add(client);
-            System.out.println(client.getName() + " is marked as ready.");
+        mailbox.execute(() -> onClientReady(client));
+    }
+
+    private void onClientReady(ClientData client) {
+        int slot = slotOf(client);
+        if (slot >= 0 && readyClients.set(slot)) {
+            stateVersion++;
+            if (roomJournal != null) {
+                roomJournal.ready(roomName, client.getName());
+            }
+            Log.debug(Log.Category.ROOM, "{} is marked as ready in {}", client.getName(), roomName);
 
             // If all clients in the room are ready and the game hasn't started, start the countdown
-            if (readyClients.size() == clients.size() && !gameStarted) {
-                System.out.println("All players are ready. Starting the countdown.");
-                startCountdown();
+            if (readyClients.count() == clients.size() && !gameStarted) {
+                Log.info(Log.Category.ROOM, "All players are ready in {}. Starting the countdown.", roomName);
+                beginCountdown();
             }
         }
     }
 
     // Method to start the countdown before the game starts
     public void startCountdown() {
-        Timer countdownTimer = new Timer();
-        countdownTimer.scheduleAtFixedRate(new TimerTask() {
-            int countdown = 3;
-
-            @Override
-            public void run() {
-                if (countdown > 0) {
-                    String message = "Game starts in: " + countdown + "...";
-                    Payload payload = new Payload("Server", message, PayloadType.NOTIFICATION);
-                    for (ClientData client : clients) {
-                        client.getServerThread().sendPayload(payload);
-                    }
-                    countdown--;
-                } else {
-                    System.out.println("Countdown complete. Starting the game.");
-                    countdownTimer.cancel();
-                    gameStarted = true; // Set game status to started
-
-                    // Notify all clients that the game has started
-                    Payload startGamePayload = new Payload("Server", "Game has started!", PayloadType.START_GAME);
-                    for (ClientData client : clients) {
-                        client.getServerThread().sendPayload(startGamePayload);
-                    }
+        mailbox.execute(this::beginCountdown);
+    }
 
-                    startFirstRound();
-                }
+    private void beginCountdown() {
+        if (countdownTask != null && !countdownTask.isDone()) {
+            return; // Already counting down
+        }
+        if (roomJournal != null) {
+            roomJournal.countdown(roomName);
+        }
+        AtomicInteger countdown = new AtomicInteger(3);
+        countdownTask = GameScheduler.scheduleAtFixedRate(() -> mailbox.execute(() -> {
+            int remaining = countdown.getAndDecrement();
+            if (remaining > 0) {
+                String message = "Game starts in: " + remaining + "...";
+                broadcast(new Payload("Server", message, PayloadType.NOTIFICATION));
+            } else if (remaining == 0) {
+                Log.info(Log.Category.GAME, "Countdown complete in {}. Starting the game.", roomName);
+                countdownTask.cancel(false);
+                gameStarted = true; // Set game status to started
+                stateVersion++;
+
+                // Notify all clients that the game has started
+                broadcast(new Payload("Server", "Game has started!", PayloadType.START_GAME));
+
+                beginFirstRound();
             }
-        }, 0, 1000); // 1 second interval
+        }), 0, 1000); // 1 second interval
     }
 
     // Method to start the first round
     public void startFirstRound() {
-        // Reload questions if the question list is empty
-        if (questionList.isEmpty()) {
-            loadQuestions("Project/questions.txt");
+        mailbox.execute(this::beginFirstRound);
+    }
+
+    private void beginFirstRound() {
+        // Put every question back if the deck has run dry
+        if (questionDeck.remaining() == 0) {
+            questionDeck.reset();
         }
 
-        if (!questionList.isEmpty()) {
-            currentRound++;
-            System.out.println("Starting round " + currentRound); // Debug message
+        if (questionDeck.remaining() > 0) {
+            Log.debug(Log.Category.GAME, "Starting the game in {}", roomName);
             startRound();
         } else {
-            System.out.println("No questions available to start the game.");
+            Log.warn(Log.Category.GAME, "No questions available to start the game in {}", roomName);
         }
     }
 
-    // Method to start a round
+    // Method to start a round; counting rounds here is what ends the session after 5
     private void startRound() {
-        if (!questionList.isEmpty()) {
-            currentQuestion = questionList.remove((int) (Math.random() * questionList.size()));
-            answeredClients.clear(); // Reset the list of clients who have answered
+        if (questionDeck.remaining() > 0) {
+            currentRound++;
+            Log.debug(Log.Category.GAME, "Starting round {} in {}", currentRound, roomName);
+            int questionIndex = questionDeck.draw();
+            currentQuestion = questionBank.get(questionIndex);
+            answeredClients.clearAll(); // Reset the list of clients who have answered
             questionStartTime = System.currentTimeMillis(); // Set the start time for this question
+            roundDeadline = questionStartTime + ROUND_DURATION;
+            if (roomJournal != null) {
+                roomJournal.question(roomName, currentRound, questionIndex, roundDeadline);
+            }
+            stateVersion++;
             broadcastQuestionToClients(currentQuestion);
             startRoundTimer();
         } else {
-            System.out.println("No more questions available.");
+            Log.debug(Log.Category.GAME, "No more questions available in {}", roomName);
             endSession();
         }
     }
@@ -139,6 +167,8 @@ public class GameRoom {
     // Method to broadcast the current question to all clients
     private void broadcastQuestionToClients(Question question) {
         QAPayload payload = new QAPayload("Server", "New Question", PayloadType.QUESTION, question.getQuestionText(), question.getAnswerOptions().toArray(new String[0]));
+        payload.setDeadline(roundDeadline); // lets synced clients run the countdown themselves
+        EncodedPayload encoded = new EncodedPayload(payload); // encode once for every player
         for (ClientData client : clients) {
             if (client.isAway()) {
                 // Skip their turn and notify others
@@ -147,63 +177,75 @@ public class GameRoom {
                 client.getServerThread().sendPayload(skipTurnPayload);
             }
             else {
-                client.getServerThread().sendPayload(payload);
+                client.getServerThread().sendEncoded(encoded);
             }
         }
-        System.out.println("Broadcasting question to clients: " + question.getQuestionText()); // Debug message
+        Log.debug(Log.Category.GAME, "Broadcasting question to {}: {}", roomName, question.getQuestionText());
     }
 
     // Method to start the round timer for each question
     private void startRoundTimer() {
-        long roundDuration = 30000; // 30 seconds per question
-        long updateInterval = 1000; // Update every second
-
-        roundTimer.scheduleAtFixedRate(new TimerTask() {
-            long timeRemaining = roundDuration;
-
-            @Override
-            public void run() {
-                if (timeRemaining > 0) {
-                    // Notify clients about time remaining
-                    TimePayload timePayload = new TimePayload("Server", "Time Update", PayloadType.TIME, timeRemaining);
-                    for (ClientData client : clients) {
-                        client.getServerThread().sendPayload(timePayload);
-                    }
-                    timeRemaining -= updateInterval;
-                } else {
-                    System.out.println("Round timer expired.");
-                    endRound();
-                    cancel();
-                }
+        long token = ++roundSequence;
+        openRound = token;
+        long timerStart = System.nanoTime(); // lag is measured from here to when the room runs each timer task
+        if (!timeTicks) {
+            // Clients render the countdown from the question deadline, only the deadline itself is scheduled
+            roundTask = GameScheduler.schedule(() -> mailbox.execute(() -> {
+                Metrics.recordRoundTimerLag(System.nanoTime() - timerStart - ROUND_DURATION * 1_000_000);
+                Log.debug(Log.Category.GAME, "Round timer expired in {}", roomName);
+                endRound(token);
+            }), ROUND_DURATION);
+            return;
+        }
+        AtomicLong timeRemaining = new AtomicLong(ROUND_DURATION);
+        roundTask = GameScheduler.scheduleAtFixedRate(() -> mailbox.execute(() -> {
+            if (openRound != token) {
+                return; // The round already ended, this tick is stale
             }
-        }, 0, updateInterval);
+            long remaining = timeRemaining.getAndAdd(-TICK_INTERVAL);
+            Metrics.recordRoundTimerLag(System.nanoTime() - timerStart - (ROUND_DURATION - remaining) * 1_000_000);
+            if (remaining > 0) {
+                // Notify clients about time remaining
+                broadcast(new TimePayload("Server", "Time Update", PayloadType.TIME, remaining));
+            } else {
+                Log.debug(Log.Category.GAME, "Round timer expired in {}", roomName);
+                endRound(token);
+            }
+        }), 0, TICK_INTERVAL);
     }
 
     // Method to notify all players when a player locks in an answer
     private void notifyPlayersAnswerLocked(ClientData player) {
         String message = player.getName() + " has locked in an answer.";
-        Payload payload = new Payload("Server", message, PayloadType.NOTIFICATION);
-        for (ClientData client : clients) {
-            client.getServerThread().sendPayload(payload);
-        }
+        broadcast(new Payload("Server", message, PayloadType.NOTIFICATION));
     }
 
     // Method to process a player's answer
     public void processAnswer(ClientData client, String answer) {
+        mailbox.execute(() -> onAnswer(client, answer));
+    }
+
+    private void onAnswer(ClientData client, String answer) {
         if (currentQuestion != null) {
             // Get the answer options
             List<String> options = currentQuestion.getAnswerOptions();
 
             // Determine the index based on the provided letter (A, B, C, D)
             int answerIndex = -1;
-            if (answer.length() == 1) {
-                char answerChar = answer.toUpperCase().charAt(0);
+            if (answer != null && answer.length() == 1) {
+                char answerChar = Character.toUpperCase(answer.charAt(0));
                 if (answerChar >= 'A' && answerChar < 'A' + options.size()) {
                     answerIndex = answerChar - 'A';
                 }
             }
 
             if (answerIndex >= 0 && answerIndex < options.size()) {
+                // Claim the player's answer for this round first, a repeated or late answer must not score again
+                int slot = slotOf(client);
+                if (openRound == 0 || slot < 0 || !answeredClients.set(slot)) {
+                    Log.debug(Log.Category.GAME, "Ignoring a repeated or late answer from {}", client.getName());
+                    return;
+                }
                 String selectedAnswer = options.get(answerIndex);
                 long responseTime = System.currentTimeMillis() - questionStartTime; // Calculate response time
 
@@ -211,35 +253,29 @@ public class GameRoom {
                     int pointsAwarded = calculatePoints(responseTime); // Calculate points based on response time
                     client.addPoints(pointsAwarded);
                     //sendnotification to all clients
-                   
-                    for (ClientData c : clients) {
-                        String notificationMessage = client.getName() + " answered correctly and earned " + pointsAwarded + " points.";
-                        Payload notification = new Payload("Server", notificationMessage, PayloadType.NOTIFICATION);
-                        c.getServerThread().sendPayload(notification);
-                    }
-                    System.out.println(client.getName() + " answered correctly and earned " + pointsAwarded + " points.");
+                    String notificationMessage = client.getName() + " answered correctly and earned " + pointsAwarded + " points.";
+                    broadcast(new Payload("Server", notificationMessage, PayloadType.NOTIFICATION));
+                    Log.debug(Log.Category.GAME, notificationMessage);
                 } else {
-                    System.out.println(client.getName() + " answered incorrectly.");
+                    Log.debug(Log.Category.GAME, "{} answered incorrectly.", client.getName());
                 }
-                notifyPlayersAnswerLocked(client); // Notify all players that this player has locked in an answer
-
-                // Add the client to the list of those who have answered
-                if (!answeredClients.contains(client)) {
-                    answeredClients.add(client);
+                if (roomJournal != null) {
+                    roomJournal.answer(roomName, client.getName(), client.getPoints());
                 }
+                notifyPlayersAnswerLocked(client); // Notify all players that this player has locked in an answer
 
                 // Check if all players have answered
                 checkAllPlayersAnswered();
             } else {
-                System.out.println("Invalid answer provided by " + client.getName());
+                Log.debug(Log.Category.GAME, "Invalid answer provided by {}", client.getName());
             }
         } else {
-            System.out.println("No current question available for " + client.getName());
+            Log.debug(Log.Category.GAME, "No current question available for {}", client.getName());
         }
     }
 
     // Method to calculate points based on response time
-    private int calculatePoints(long responseTime) {
+    static int calculatePoints(long responseTime) {
         if (responseTime <= 5000) { // If answered within 5 seconds
             return 20; // Fast response, higher points
         } else if (responseTime <= 15000) { // If answered within 15 seconds
@@ -251,16 +287,26 @@ public class GameRoom {
 
     // Method to check if all players have answered
     private void checkAllPlayersAnswered() {
-        if (answeredClients.size() == clients.size()) {
-            System.out.println("All players have answered. Ending the round.");
-            endRound();
+        if (answeredClients.count() == clients.size()) {
+            Log.debug(Log.Category.GAME, "All players have answered in {}. Ending the round.", roomName);
+            endRound(openRound);
         }
     }
 
-    // Method to end the round
-    private void endRound() {
-        roundTimer.cancel();
-        roundTimer = new Timer(); // Reset the timer for the next round
+    // Method to end the round identified by `token`; a timer task queued behind the last answer
+    // still carries the old token and is ignored
+    private void endRound(long token) {
+        if (token == 0 || openRound != token) {
+            return;
+        }
+        openRound = 0;
+        stateVersion++;
+        if (roomJournal != null) {
+            roomJournal.roundEnd(roomName, currentRound);
+        }
+        if (roundTask != null) {
+            roundTask.cancel(false);
+        }
         syncPointsToClients();
         if (currentRound < 5) { // Example condition for session end after 5 rounds
             startRound();
@@ -269,30 +315,137 @@ public class GameRoom {
         }
     }
 
-    // Method to sync points to all clients
+    // Method to sync points to all clients as one scoreboard holding only what changed since the last one
+    // to every client; those whose queue lost a delta get a full board instead, built at most once per sync
     private void syncPointsToClients() {
+        ScoreboardPayload scoreboard = buildScoreboard("Points Update", true);
+        boolean changed = scoreboard.size() > 0 || scoreboard.getRemoved().length > 0;
+        EncodedPayload delta = changed ? new EncodedPayload(scoreboard) : null;
+        EncodedPayload full = null;
         for (ClientData client : clients) {
-            PointsPayload pointsPayload = new PointsPayload(client.getName(), "Points Update", PayloadType.POINTS, client.getPoints());
-            for (ClientData c : clients) {
-                c.getServerThread().sendPayload(pointsPayload);
+            ServerThread thread = client.getServerThread();
+            if (thread.getOutboundQueue().needsFullBoard()) {
+                if (full == null) {
+                    full = new EncodedPayload(buildScoreboard("Points Update", false));
+                }
+                thread.sendEncoded(full);
+            } else if (delta != null) {
+                thread.sendEncoded(delta);
+            }
+        }
+    }
+
+    // Method to rank the members and build a full scoreboard, or a delta against the last delta sent
+    private ScoreboardPayload buildScoreboard(String message, boolean delta) {
+        return buildScoreboard(message, delta, Integer.MAX_VALUE);
+    }
+
+    // Method to build a scoreboard of at most `limit` rows, the top of the ranking; only full boards are cut
+    private ScoreboardPayload buildScoreboard(String message, boolean delta, int limit) {
+        if (!delta && limit == 0) {
+            // Nothing to rank, so skip the scan over every member
+            return new ScoreboardPayload("Server", message, PayloadType.SCOREBOARD, false, new String[0], new int[0],
+                    new int[0], new String[0]);
+        }
+        // Sort (-points, slot) pairs packed into longs: highest score first, no boxing
+        long[] order = new long[clients.size()];
+        int count = 0;
+        for (int slot = 0; slot < slotLimit && count < order.length; slot++) {
+            if (slots[slot] != null) {
+                order[count++] = ((long) -slots[slot].getPoints() << 32) | slot;
+            }
+        }
+        if (!delta && limit < count) {
+            selectSmallest(order, count, limit); // O(N) to find the top rows, then only those are sorted
+            count = limit;
+        }
+        Arrays.sort(order, 0, count);
+
+        String[] names = new String[count];
+        int[] scores = new int[count];
+        int[] ranks = new int[count];
+        int entries = 0;
+        int rank = 0;
+        int previousScore = 0;
+        for (int i = 0; i < count; i++) {
+            int slot = (int) order[i];
+            int score = slots[slot].getPoints();
+            if (i == 0 || score != previousScore) {
+                rank = i + 1; // tied players share the better rank
+                previousScore = score;
+            }
+            if (!delta || sentScores[slot] != score || sentRanks[slot] != rank) {
+                names[entries] = slots[slot].getName();
+                scores[entries] = score;
+                ranks[entries] = rank;
+                entries++;
+            }
+            if (delta) {
+                sentScores[slot] = score;
+                sentRanks[slot] = rank;
+            }
+        }
+        String[] removed = new String[0];
+        if (delta) {
+            removed = departed.toArray(removed);
+            departed.clear();
+        }
+        return new ScoreboardPayload("Server", message, PayloadType.SCOREBOARD, delta, Arrays.copyOf(names, entries),
+                Arrays.copyOf(scores, entries), Arrays.copyOf(ranks, entries), removed);
+    }
+
+    // Quickselect: move the `k` smallest of values[0, count) to the front, in no particular order
+    private static void selectSmallest(long[] values, int count, int k) {
+        int low = 0;
+        int high = count - 1;
+        while (low < high && k > 0) {
+            long pivot = values[(low + high) >>> 1];
+            int i = low;
+            int j = high;
+            while (i <= j) {
+                while (values[i] < pivot) {
+                    i++;
+                }
+                while (values[j] > pivot) {
+                    j--;
+                }
+                if (i <= j) {
+                    long swap = values[i];
+                    values[i++] = values[j];
+                    values[j--] = swap;
+                }
+            }
+            // [low, j] <= pivot <= [i, high]; keep narrowing the side that holds position k - 1
+            if (k - 1 <= j) {
+                high = j;
+            } else if (k - 1 >= i) {
+                low = i;
+            } else {
+                return;
             }
         }
     }
 
     // Method to end the session
     private void endSession() {
-        System.out.println("Game session ended.");
+        Log.info(Log.Category.GAME, "Game session ended in {}", roomName);
         // Send final scoreboard to all clients
-        for (ClientData client : clients) {
-            PointsPayload pointsPayload = new PointsPayload(client.getName(), "Final Score", PayloadType.POINTS, client.getPoints());
-            client.getServerThread().sendPayload(pointsPayload);
+        ScoreboardPayload finalScores = buildScoreboard("Final Score", false);
+        broadcast(finalScores);
+        ScoreHistory history = scoreHistory;
+        if (history != null) {
+            // Recorded before the points are reset; only copies into the mapped log, the disk sync happens later
+            history.record(roomName, System.currentTimeMillis(), finalScores.getNames(), finalScores.getScores());
+        }
+        if (roomJournal != null) {
+            roomJournal.sessionEnd(roomName);
+            if (clients.isEmpty()) {
+                roomJournal.roomClosed(roomName); // everyone left during the game
+            }
         }
         shiftToReadyPhase();
         //send payload to all clients to come back to ready phase
-        Payload readyPayload = new Payload("Server", "Game is ready for a new session", PayloadType.READY);
-        for (ClientData client : clients) {
-            client.getServerThread().sendPayload(readyPayload);
-        }
+        broadcast(new Payload("Server", "Game is ready for a new session", PayloadType.READY));
         resetGame();
 
 
@@ -301,26 +454,85 @@ public class GameRoom {
     // Method to reset the game
     private void resetGame() {
         currentRound = 0;
-        questionList.clear(); // Clear previous questions
-        loadQuestions("Project/questions.txt"); // Reload questions for the next session
-        System.out.println("Game reset. Ready for a new session.");
+        restoredPoints = null; // Points from before a restart only carry into the session they were journaled in
+        questionDeck.reset(); // Every question is available again next session
+        Log.debug(Log.Category.GAME, "Game reset in {}. Ready for a new session.", roomName);
         //make payload to send to all clients to reset the clients points
-        for (ClientData client : clients) {
-            Payload pointsPayload = new Payload(client.getName(), "Reset Points", PayloadType.RESET_POINTS);
-            client.getServerThread().sendPayload(pointsPayload);
-        }
+        broadcast(new Payload("Server", "Reset Points", PayloadType.RESET_POINTS));
+        // Clients start from an empty scoreboard, so the next delta lists everyone
+        Arrays.fill(sentRanks, 0);
+        departed.clear();
         gameStarted = false; // Reset game status
+        stateVersion++;
     }
 
     // Method to shift all players back to ready phase
     private void shiftToReadyPhase() {
-        readyClients.clear();
+        readyClients.clearAll();
         for (ClientData client : clients) {
             client.setPoints(0); // Reset player points
-            Payload readyPayload = new Payload("Server", "Game is ready for a new session", PayloadType.NOTIFICATION);
-            client.getServerThread().sendPayload(readyPayload);
         }
-        System.out.println("Players are shifted back to the ready phase.");
+        broadcast(new Payload("Server", "Game is ready for a new session", PayloadType.NOTIFICATION));
+        Log.debug(Log.Category.ROOM, "Players in {} are shifted back to the ready phase.", roomName);
+    }
+
+    // Method to send one payload to every client, encoded once and shared by all recipients
+    public void broadcast(Payload payload) {
+        EncodedPayload encoded = new EncodedPayload(payload);
+        for (ClientData client : clients) {
+            client.getServerThread().sendEncoded(encoded);
+        }
+    }
+
+    // Setter for the client who created the room
+    public void setOwner(ClientData owner) {
+        this.owner = owner;
+    }
+
+    // Method to limit the questions to some categories; only the owner decides while they are in the room
+    public void setSelectedCategories(ClientData client, List<String> categoryNames) {
+        mailbox.execute(() -> onSelectedCategories(client, categoryNames));
+    }
+
+    private void onSelectedCategories(ClientData client, List<String> categoryNames) {
+        if (owner != null && owner != client && clients.contains(owner)) {
+            return;
+        }
+        if (gameStarted) {
+            client.getServerThread().sendPayload(new Payload("Server", "Categories can only be changed between games.", PayloadType.NOTIFICATION));
+            return;
+        }
+        int[] ids = new int[categoryNames.size()];
+        int count = 0;
+        List<String> accepted = new ArrayList<>();
+        for (String name : categoryNames) {
+            int id = questionBank.findCategory(name);
+            if (id >= 0 && questionBank.getCategorySize(id) > 0 && !accepted.contains(questionBank.getCategoryName(id))) {
+                ids[count++] = id;
+                accepted.add(questionBank.getCategoryName(id));
+            }
+        }
+        questionDeck.setCategories(Arrays.copyOf(ids, count));
+        String message = accepted.isEmpty()
+                ? (categoryNames.isEmpty() ? "Questions will come from every category." : "No questions in the selected categories, using every category.")
+                : "Questions will come from: " + String.join(", ", accepted);
+        broadcast(new Payload("Server", message, PayloadType.NOTIFICATION));
+        Log.info(Log.Category.ROOM, "{}: {}", roomName, message);
+    }
+
+    // Method to queue a task behind everything already posted to the room, for tools that wait on the room
+    void execute(Runnable task) {
+        mailbox.execute(task);
+    }
+
+    // Getter for the room name
+    public String getRoomName() {
+        return roomName;
+    }
+
+    // Getter for the number of clients in the room
+    public int getMemberCount() {
+        return clients.size();
     }
 
     // Method to check if the game has started
@@ -330,63 +542,167 @@ public class GameRoom {
 
     // Method to add a client to the room
     public void addClient(ClientData client) {
-        clients.add(client);
-        System.out.println(client.getName() + " joined the room " + roomName);
+        mailbox.execute(() -> onClientJoined(client));
+    }
 
-        // Sync the current game state if a game is in progress
-        if (currentRound > 0 && currentQuestion != null) {
-            // Send the current question to the newly joined client
-            QAPayload questionPayload = new QAPayload("Server", "Current Question", PayloadType.QUESTION, currentQuestion.getQuestionText(), currentQuestion.getAnswerOptions().toArray(new String[0]));
-            client.getServerThread().sendPayload(questionPayload);
+    private void onClientJoined(ClientData client) {
+        if (slotOf(client) >= 0) {
+            return; // Already a member
+        }
+        assignSlot(client);
+        clients.add(client);
+        stateVersion++;
+        Integer restored = restoredPoints == null ? null : restoredPoints.remove(client.getName());
+        if (restored != null) {
+            client.setPoints(restored); // the player had these points when the server went down
+        }
+        Log.info(Log.Category.ROOM, "{} joined the room {}", client.getName(), roomName);
 
-            // Send the remaining time for the current round
-            long timeRemaining = calculateRemainingTime();
-            TimePayload timePayload = new TimePayload("Server", "Time Update", PayloadType.TIME, timeRemaining);
-            client.getServerThread().sendPayload(timePayload);
+        // Sync the whole room in one message. It is built in the mailbox, so everything broadcast
+        // after it is a change the joiner has not seen yet
+        client.getServerThread().sendPayload(buildRoomState());
+    }
 
-            // Sync the points for all clients to the newly joined client
-            syncPointsToClient(client);
+    // Method to snapshot the room for a joining client
+    // The Lobby's snapshot has no scoreboard or ready names: it can hold every connected player, and a
+    // sorted board per join would make connecting N players O(N^2 log N) and outgrow the frame limit
+    private RoomStatePayload buildRoomState() {
+        RoomStatePayload.Phase phase;
+        String question = null;
+        String[] options = null;
+        if (openRound != 0 && currentQuestion != null) {
+            phase = RoomStatePayload.Phase.QUESTION;
+            question = currentQuestion.getQuestionText();
+            options = currentQuestion.getAnswerOptions().toArray(new String[0]);
+        } else if (gameStarted || (countdownTask != null && !countdownTask.isDone())) {
+            phase = RoomStatePayload.Phase.STARTING;
+        } else {
+            phase = RoomStatePayload.Phase.WAITING;
+        }
+        boolean lobby = LOBBY.equals(roomName);
+        String[] readyNames = new String[lobby ? 0 : Math.min(readyClients.count(), SNAPSHOT_LIMIT)];
+        int ready = 0;
+        for (int slot = 0; slot < slotLimit && ready < readyNames.length; slot++) {
+            if (slots[slot] != null && readyClients.get(slot)) {
+                readyNames[ready++] = slots[slot].getName();
+            }
         }
+        return new RoomStatePayload("Server", roomName, PayloadType.ROOM_STATE, stateVersion, phase, question, options,
+                question == null ? 0 : roundDeadline, question == null ? 0 : calculateRemainingTime(),
+                buildScoreboard("Points Update", false, lobby ? 0 : SNAPSHOT_LIMIT), readyNames, clients.size(),
+                readyClients.count());
     }
 
     //method to add spector to the roo
     public void addSpectator(ClientData client) {
+        mailbox.execute(() -> onSpectatorJoined(client));
+    }
+
+    private void onSpectatorJoined(ClientData client) {
         //send notification to all clients that a spectator has joined
-        Payload notification = new Payload("Server", client.getName() + " joined the room as a spectator: " + roomName, PayloadType.NOTIFICATION);
-        for (ClientData c : clients) {
-            c.getServerThread().sendPayload(notification);
-        }
-        System.out.println(client.getName() + " joined the room as a spectator: " + roomName);
-        addClient(client);
+        broadcast(new Payload("Server", client.getName() + " joined the room as a spectator: " + roomName, PayloadType.NOTIFICATION));
+        Log.info(Log.Category.ROOM, "{} joined the room as a spectator: {}", client.getName(), roomName);
+        onClientJoined(client);
     }
 
     // Method to remove a client from the room
     public void removeClient(ClientData client) {
+        mailbox.execute(() -> onClientLeft(client));
+    }
+
+    private void onClientLeft(ClientData client) {
+        int slot = slotOf(client);
+        if (slot < 0) {
+            return;
+        }
         clients.remove(client);
-        readyClients.remove(client);
-        System.out.println(client.getName() + " left the room " + roomName);
+        stateVersion++;
+        readyClients.clear(slot);
+        answeredClients.clear(slot);
+        releaseSlot(client, slot);
+        Log.info(Log.Category.ROOM, "{} left the room {}", client.getName(), roomName);
+        if (clients.isEmpty() && !gameStarted && roomJournal != null) {
+            roomJournal.roomClosed(roomName); // a running game journals it at the end of the session instead
+        }
+    }
+
+    // Method to find a member's slot in O(1), -1 if the client is not a member
+    private int slotOf(ClientData client) {
+        Integer slot = slotIndex.get(client);
+        return slot == null ? -1 : slot;
+    }
+
+    // Method to give a new member a free slot
+    private void assignSlot(ClientData client) {
+        int slot;
+        if (freeCount > 0) {
+            slot = freeSlots[--freeCount];
+        } else {
+            if (slotLimit == slots.length) {
+                slots = Arrays.copyOf(slots, slots.length * 2);
+                sentScores = Arrays.copyOf(sentScores, slots.length);
+                sentRanks = Arrays.copyOf(sentRanks, slots.length);
+            }
+            slot = slotLimit++;
+        }
+        slots[slot] = client;
+        sentRanks[slot] = 0; // not on any scoreboard yet
+        slotIndex.put(client, slot);
     }
 
-    // Method to sync points to a specific client
-    private void syncPointsToClient(ClientData client) {
-        for (ClientData existingClient : clients) {
-            PointsPayload pointsPayload = new PointsPayload(client.getName(), "Points Update", PayloadType.POINTS, client.getPoints());
-            client.getServerThread().sendPayload(pointsPayload);
+    // Method to put a leaving member's slot back on the free list
+    private void releaseSlot(ClientData client, int slot) {
+        if (sentRanks[slot] != 0) {
+            departed.add(client.getName());
         }
+        slots[slot] = null;
+        if (freeCount == freeSlots.length) {
+            freeSlots = Arrays.copyOf(freeSlots, freeSlots.length * 2);
+        }
+        freeSlots[freeCount++] = slot;
+        slotIndex.remove(client);
     }
+
+    // Method to mark a client as away or back
     public void markClientAway(ClientData client, boolean isAway) {
+        mailbox.execute(() -> onClientAway(client, isAway));
+    }
+
+    private void onClientAway(ClientData client, boolean isAway) {
         client.setAway(isAway);
         String message = client.getName() + " is " + (isAway ? "away" : "no longer away");
-        Payload awayStatusPayload = new Payload("Server", message, PayloadType.NOTIFICATION);
-        
         // Send notification to all clients
-        for (ClientData c : clients) {
-            c.getServerThread().sendPayload(awayStatusPayload);
-        }
+        broadcast(new Payload("Server", message, PayloadType.NOTIFICATION));
     }
 
-    // Placeholder method to calculate remaining time for the current round
+    // Method to calculate remaining time for the current round
     private long calculateRemainingTime() {
-        return 20000; // Example: 20 seconds remaining
+        return Math.max(0, roundDeadline - System.currentTimeMillis());
+    }
+
+    // Method to turn the per-second TIME broadcasts on or off for every room
+    public static void setTimeTicks(boolean enabled) {
+        timeTicks = enabled;
+    }
+
+    // Method to bring back a room's round and points from the journal; the game itself restarts from the ready check,
+    // since the answer times of an interrupted question are lost
+    public void restore(RoomJournal.RoomState state) {
+        int round = state.getRound();
+        Map<String, Integer> points = new HashMap<>(state.getPoints());
+        mailbox.execute(() -> {
+            currentRound = round;
+            restoredPoints = points;
+        });
+    }
+
+    // Method to journal every room's state changes to `journal`, or to nothing when null
+    public static void setRoomJournal(RoomJournal journal) {
+        roomJournal = journal;
+    }
+
+    // Method to keep every room's final scoreboards in `history`, or in nothing when null
+    public static void setScoreHistory(ScoreHistory history) {
+        scoreHistory = history;
     }
 }
@@ -0,0 +1,59 @@
+package Project;
+
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * One scheduler shared by every GameRoom for countdowns, round deadlines and timer ticks.
+ * Replaces the java.util.Timer each room used to create (one sleeping thread per room and
+ * another per countdown) with a handful of daemon threads for the whole server.
+ */
+public class GameScheduler {
+    private static final int THREADS = Math.max(2, Runtime.getRuntime().availableProcessors() / 2);
+    private static final ScheduledThreadPoolExecutor EXECUTOR = createExecutor();
+
+    private GameScheduler() {
+    }
+
+    private static ScheduledThreadPoolExecutor createExecutor() {
+        AtomicInteger count = new AtomicInteger();
+        ThreadFactory factory = task -> {
+            Thread thread = new Thread(task, "game-timer-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(THREADS, factory);
+        executor.setRemoveOnCancelPolicy(true); // cancelled round timers don't linger in the queue
+        return executor;
+    }
+
+    // Method to run a task once after a delay
+    public static ScheduledFuture<?> schedule(Runnable task, long delayMillis) {
+        return EXECUTOR.schedule(guard(task), delayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    // Method to run a task repeatedly, the first run after `delayMillis`
+    public static ScheduledFuture<?> scheduleAtFixedRate(Runnable task, long delayMillis, long periodMillis) {
+        return EXECUTOR.scheduleAtFixedRate(guard(task), delayMillis, periodMillis, TimeUnit.MILLISECONDS);
+    }
+
+    // Method to get the number of tasks waiting to run
+    public static int getQueuedTasks() {
+        return EXECUTOR.getQueue().size();
+    }
+
+    // An exception in one room must not cancel that room's repeating task silently or hurt other rooms
+    private static Runnable guard(Runnable task) {
+        return () -> {
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                Log.error(Log.Category.GAME, "Error in game timer task: {}", e);
+                e.printStackTrace();
+            }
+        };
+    }
+}
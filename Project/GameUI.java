@@ -2,23 +2,29 @@ package Project;
 
 import javax.swing.*;
 import javax.swing.border.TitledBorder;
+import javax.swing.event.ListDataEvent;
+import javax.swing.event.ListDataListener;
 
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.util.Collections;
 import java.util.Map;
 
 public class GameUI {
 
     private static GameUI instance; // Static reference for accessing GameUI instance
+    private static final int EVENT_LOG_SIZE = 500; // Older game events are dropped
 
     private JFrame frame;
     private JPanel connectionPanel;
     private JPanel roomPanel; // New panel for room creation/joining
     private JPanel readyCheckPanel;
     private JPanel gameAreaPanel;
-    private JPanel userListPanel;
-    private JPanel gameEventPanel;
+    private final UiEventQueue uiEvents; // Updates from the listener thread, applied once per frame
+    private ScoreboardTableModel scoreboard; // Sorted players, refreshed at most once per frame
+    private JList<String> gameEventList;
+    private EventLogModel gameEvents; // Events of the current frame are shown together
     private JPanel questionManagementPanel;
 
     private JTextField usernameField;
@@ -37,12 +43,18 @@ public class GameUI {
     private JLabel questionLabel;
     private JButton[] answerButtons;
     private JLabel timerLabel;
+    private Timer localCountdown; // Counts down to the question deadline when the clock is synced
     private JList<String> categoryList; // List to hold category options
 
     private Client client;
 
     public GameUI(String host, int port) {
         instance = this; // Set the static reference to the current instance
+        uiEvents = new UiEventQueue(frameMillis(), () -> {
+            if (gameEvents != null) {
+                gameEvents.flush();
+            }
+        });
 
         frame = new JFrame("Trivia Game");
         frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
@@ -411,7 +423,7 @@ public class GameUI {
 
     // Method to trigger countdown after all players are ready
     public void startCountdown() {
-        SwingUtilities.invokeLater(() -> {
+        uiEvents.post(() -> {
             Timer countdownTimer = new Timer(1000, new ActionListener() {
                 int countdown = 3;
 
@@ -432,24 +444,54 @@ public class GameUI {
         });
     }
 
+    // Method to run a UI change from the listener thread with the rest of the current frame's updates
+    public void runInFrame(Runnable update) {
+        uiEvents.post(update);
+    }
+
     // Method to create the game area panel
     private void createGameAreaPanel() {
         gameAreaPanel = new JPanel();
         gameAreaPanel.setLayout(new BorderLayout());
     
-        // User List Panel
-        userListPanel = new JPanel();
-        userListPanel.setLayout(new BoxLayout(userListPanel, BoxLayout.Y_AXIS));
-        userListPanel.setBorder(BorderFactory.createTitledBorder("Users"));
-        JScrollPane userListScroll = new JScrollPane(userListPanel);
+        // User List Panel, a scoreboard table updated in place
+        scoreboard = new ScoreboardTableModel();
+        JTable scoreTable = new JTable(scoreboard);
+        scoreTable.setFillsViewportHeight(true);
+        scoreTable.getColumnModel().getColumn(0).setPreferredWidth(30);
+        scoreTable.getColumnModel().getColumn(1).setPreferredWidth(120);
+        scoreTable.getColumnModel().getColumn(2).setPreferredWidth(50);
+        JScrollPane userListScroll = new JScrollPane(scoreTable);
+        userListScroll.setBorder(BorderFactory.createTitledBorder("Users"));
         userListScroll.setPreferredSize(new Dimension(200, 400));
     
-        // Game Events Panel
-        gameEventPanel = new JPanel();
-        gameEventPanel.setLayout(new BoxLayout(gameEventPanel, BoxLayout.Y_AXIS));
-        gameEventPanel.setBorder(BorderFactory.createTitledBorder("Game Events"));
-        JScrollPane gameEventScroll = new JScrollPane(gameEventPanel);
+        // Game Events Panel, a bounded log where only the rows on screen are rendered
+        gameEvents = new EventLogModel(EVENT_LOG_SIZE);
+        gameEventList = new JList<>(gameEvents);
+        gameEventList.setFixedCellHeight(gameEventList.getFontMetrics(gameEventList.getFont()).getHeight() + 2);
+        gameEventList.setFixedCellWidth(100); // stretched to the viewport, so rows are never measured
+        JScrollPane gameEventScroll = new JScrollPane(gameEventList);
+        gameEventScroll.setBorder(BorderFactory.createTitledBorder("Game Events"));
         gameEventScroll.setPreferredSize(new Dimension(200, 400));
+        JScrollBar eventScrollBar = gameEventScroll.getVerticalScrollBar();
+        gameEvents.addListDataListener(new ListDataListener() {
+            @Override
+            public void intervalAdded(ListDataEvent e) {
+                // Follow new events unless the player scrolled up to read older ones
+                int slack = gameEventList.getFixedCellHeight() * 2;
+                if (eventScrollBar.getValue() + eventScrollBar.getVisibleAmount() >= eventScrollBar.getMaximum() - slack) {
+                    SwingUtilities.invokeLater(() -> gameEventList.ensureIndexIsVisible(gameEvents.getSize() - 1));
+                }
+            }
+
+            @Override
+            public void intervalRemoved(ListDataEvent e) {
+            }
+
+            @Override
+            public void contentsChanged(ListDataEvent e) {
+            }
+        });
     
         // Question Area
         JPanel questionArea = new JPanel();
@@ -536,8 +578,7 @@ public class GameUI {
     }
     public void updateToReadyCheckPanel() {
         //clear the user list panel before updating and show the ready check panel and reset the ready button
-        SwingUtilities.invokeLater(() -> {
-            userListPanel.removeAll();
+        uiEvents.post(() -> {
             readyButton.setEnabled(true);
             readyStatusLabel.setText("Waiting for other players...");
             showPanel("ReadyCheck");
@@ -545,6 +586,7 @@ public class GameUI {
     }
 
     public static void showFinalScore(Map<String, Integer> playerPoints) {
+        // Not batched: the modal dialog would hold up the rest of the frame's updates until closed
         SwingUtilities.invokeLater(() -> {
             StringBuilder finalScore = new StringBuilder("Final Scores:\n");
             for (Map.Entry<String, Integer> entry : playerPoints.entrySet()) {
@@ -555,69 +597,94 @@ public class GameUI {
     }
     // Static methods to update the UI from the client
     public static void updateQuestion(String question, String[] options) {
-        SwingUtilities.invokeLater(() -> {
-            GameUI uiInstance = getUIInstance();
-            if (uiInstance != null) {
+        GameUI uiInstance = getUIInstance();
+        if (uiInstance != null) {
+            uiInstance.uiEvents.post("question", () -> {
                 uiInstance.questionLabel.setText(question);
                 for (int i = 0; i < options.length; i++) {
                     uiInstance.answerButtons[i].setText(options[i]);
                     uiInstance.answerButtons[i].setEnabled(true);
                     uiInstance.answerButtons[i].setBackground(null); // Reset button background
                 }
-            }
-        });
+            });
+        }
     }
 
+    // Method to show the latest points; the map is a snapshot the caller no longer changes
     public static void updatePlayerPoints(Map<String, Integer> playerPoints) {
-        SwingUtilities.invokeLater(() -> {
-            GameUI uiInstance = getUIInstance();
-            if (uiInstance != null) {
-                // Clear the user list panel before updating
-                uiInstance.userListPanel.removeAll();
-                for (Map.Entry<String, Integer> entry : playerPoints.entrySet()) {
-                    JLabel userLabel = new JLabel(entry.getKey() + ": " + entry.getValue() + " points");
-                    uiInstance.userListPanel.add(userLabel);
-                }
-                uiInstance.userListPanel.revalidate();
-                uiInstance.userListPanel.repaint();
+        GameUI uiInstance = getUIInstance();
+        if (uiInstance != null) {
+            uiInstance.uiEvents.post("scores", () -> uiInstance.scoreboard.apply(playerPoints));
+        }
+    }
 
-            }
-        });
+    // Method to show a status line on the ready check page
+    public static void updateReadyStatus(String status) {
+        GameUI uiInstance = getUIInstance();
+        if (uiInstance != null) {
+            uiInstance.uiEvents.post("ready-status", () -> uiInstance.readyStatusLabel.setText(status));
+        }
     }
 
     // Method to update the timer in the UI
     public static void updateTimer(int timeRemaining) {
-        SwingUtilities.invokeLater(() -> {
-            GameUI uiInstance = getUIInstance();
-            if (uiInstance != null) {
+        GameUI uiInstance = getUIInstance();
+        if (uiInstance != null) {
+            // Same key as the local countdown: both drive timerLabel, so only the newest of the two runs in a frame
+            uiInstance.uiEvents.post("timer", () -> {
+                if (uiInstance.localCountdown != null) {
+                    uiInstance.localCountdown.stop(); // the server's tick wins over the local countdown
+                }
                 uiInstance.timerLabel.setText("Time Remaining: " + timeRemaining + " seconds");
-            }
-        });
+            });
+        }
+    }
+
+    // Method to count down to a deadline on the local clock instead of waiting for TIME updates
+    public static void startCountdownTo(long localDeadline) {
+        GameUI uiInstance = getUIInstance();
+        if (uiInstance != null) {
+            // Same key as the local countdown: both drive timerLabel, so only the newest of the two runs in a frame
+            uiInstance.uiEvents.post("timer", () -> {
+                if (uiInstance.localCountdown != null) {
+                    uiInstance.localCountdown.stop();
+                }
+                uiInstance.localCountdown = new Timer(250, e -> {
+                    long remaining = localDeadline - System.currentTimeMillis();
+                    int seconds = (int) Math.max(0, (remaining + 999) / 1000);
+                    uiInstance.timerLabel.setText("Time Remaining: " + seconds + " seconds");
+                    if (remaining <= 0) {
+                        ((Timer) e.getSource()).stop();
+                    }
+                });
+                uiInstance.localCountdown.setInitialDelay(0);
+                uiInstance.localCountdown.start();
+            });
+        }
     }
 
+    // Method to add a game event; the log shows new events once per display frame
     public static void displayNotification(String message) {
-        SwingUtilities.invokeLater(() -> {
-            GameUI uiInstance = getUIInstance();
-            if (uiInstance != null) {
-                JLabel notificationLabel = new JLabel(message);
-                uiInstance.gameEventPanel.add(notificationLabel);
-                uiInstance.gameEventPanel.revalidate();
-                uiInstance.gameEventPanel.repaint();
-            }
-        });
+        GameUI uiInstance = getUIInstance();
+        if (uiInstance != null) {
+            uiInstance.uiEvents.post(() -> uiInstance.gameEvents.append(message));
+        }
+    }
+
+    // Method to get the display frame time in milliseconds, 60 Hz if the screen does not say
+    private static int frameMillis() {
+        int refreshRate = DisplayMode.REFRESH_RATE_UNKNOWN;
+        if (!GraphicsEnvironment.isHeadless()) {
+            refreshRate = GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice().getDisplayMode().getRefreshRate();
+        }
+        return 1000 / (refreshRate > 0 ? refreshRate : 60);
     }
 
     // Method to reset player points display
     public static void resetPlayerPoints() {
-        SwingUtilities.invokeLater(() -> {
-            GameUI uiInstance = getUIInstance();
-            if (uiInstance != null) {
-                uiInstance.userListPanel.removeAll();
-                uiInstance.userListPanel.revalidate();
-                uiInstance.userListPanel.repaint();
-            }
-        });
+        updatePlayerPoints(Collections.emptyMap());
     }
+
     // Method to get the static GameUI instance
     private static GameUI getUIInstance() {
         return instance;
@@ -0,0 +1,134 @@
+package Project;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Log-linear histogram of non-negative values such as latencies in nanoseconds, in the
+ * style of HdrHistogram. Values below 64 get a bucket each; above that every power of two is
+ * split into 32 buckets, so a recorded value is off by at most about 3%. Recording is an
+ * index computation and a few atomic updates: no locks and no allocation, safe from any thread.
+ */
+public class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS; // buckets per power of two
+    private static final int LINEAR_LIMIT = SUB_BUCKETS * 2; // values below this are exact
+    private static final int BUCKETS = LINEAR_LIMIT + (63 - SUB_BUCKET_BITS - 1) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong total = new AtomicLong();
+    private final AtomicLong sum = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    // Method to record one value; negative values count as 0
+    public void record(long value) {
+        if (value < 0) {
+            value = 0;
+        }
+        counts.incrementAndGet(bucket(value));
+        total.incrementAndGet();
+        sum.addAndGet(value);
+        long currentMax = max.get();
+        while (value > currentMax && !max.compareAndSet(currentMax, value)) {
+            currentMax = max.get();
+        }
+    }
+
+    private static int bucket(long value) {
+        if (value < LINEAR_LIMIT) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS; // keeps the top 6 bits
+        int mantissa = (int) (value >>> shift); // between SUB_BUCKETS and 2 * SUB_BUCKETS - 1
+        return LINEAR_LIMIT + (shift - 1) * SUB_BUCKETS + (mantissa - SUB_BUCKETS);
+    }
+
+    // Highest value that falls in a bucket
+    private static long bucketTop(int bucket) {
+        if (bucket < LINEAR_LIMIT) {
+            return bucket;
+        }
+        int shift = (bucket - LINEAR_LIMIT) / SUB_BUCKETS + 1;
+        long mantissa = (bucket - LINEAR_LIMIT) % SUB_BUCKETS + SUB_BUCKETS;
+        return ((mantissa + 1) << shift) - 1;
+    }
+
+    // Getter for the number of values recorded
+    public long getCount() {
+        return total.get();
+    }
+
+    // Getter for the largest value recorded
+    public long getMax() {
+        return max.get();
+    }
+
+    // Getter for the sum of the values recorded
+    public long getSum() {
+        return sum.get();
+    }
+
+    // Getter for the mean of the values recorded, 0 if there are none
+    public double getMean() {
+        long count = total.get();
+        return count == 0 ? 0 : (double) sum.get() / count;
+    }
+
+    // Method to get the value at a percentile (0 to 100), reported as the top of its bucket
+    public long getValueAtPercentile(double percentile) {
+        long count = total.get();
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(count * Math.min(100, percentile) / 100));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                return Math.min(bucketTop(i), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    // Method to count the values at or below each bound (sorted ascending), to within one bucket
+    public long[] getCumulativeCounts(long[] upperBounds) {
+        long[] cumulative = new long[upperBounds.length];
+        long seen = 0;
+        int next = 0;
+        for (int i = 0; i < BUCKETS && next < upperBounds.length; i++) {
+            seen += counts.get(i);
+            while (next < upperBounds.length && bucket(Math.max(0, upperBounds[next])) <= i) {
+                cumulative[next++] = seen;
+            }
+        }
+        return cumulative;
+    }
+
+    // Method to add another histogram's values to this one
+    public void add(LatencyHistogram other) {
+        for (int i = 0; i < BUCKETS; i++) {
+            long count = other.counts.get(i);
+            if (count != 0) {
+                counts.addAndGet(i, count);
+            }
+        }
+        total.addAndGet(other.total.get());
+        sum.addAndGet(other.sum.get());
+        long otherMax = other.max.get();
+        long currentMax = max.get();
+        while (otherMax > currentMax && !max.compareAndSet(currentMax, otherMax)) {
+            currentMax = max.get();
+        }
+    }
+
+    // Method to forget every value
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts.set(i, 0);
+        }
+        total.set(0);
+        sum.set(0);
+        max.set(0);
+    }
+}
@@ -0,0 +1,275 @@
+package Project;
+
+import java.io.PrintStream;
+import java.util.Locale;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Asynchronous logger for the server. Callers pass a pattern with {} placeholders and the
+ * raw arguments; when the category is switched off for that level the call returns after
+ * one array read. Otherwise the pieces go into a preallocated lock-free ring and a single
+ * background thread formats and prints them, so room and network threads never wait on the
+ * stdout lock. If the ring is full the message is dropped and counted rather than blocking.
+ */
+public final class Log {
+
+    public enum Level {
+        DEBUG, INFO, WARN, ERROR, OFF
+    }
+
+    public enum Category {
+        SERVER, NET, ROOM, GAME
+    }
+
+    private static final int CAPACITY = 8192; // must be a power of two
+    private static final int MASK = CAPACITY - 1;
+    private static final int MAX_BATCH = 512; // messages printed per write to stdout
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    /**
+     * One ring entry; `sequence` says whose turn it is, the other fields are published by writing it
+     */
+    private static final class Slot {
+        private volatile long sequence;
+        private long time;
+        private Level level;
+        private Category category;
+        private String pattern;
+        private Object first;
+        private Object second;
+        private Object third;
+    }
+
+    private static final Slot[] ring = new Slot[CAPACITY];
+    private static final AtomicLong tail = new AtomicLong(); // next position a producer claims
+    private static long head; // next position the writer reads, guarded by the class lock
+    private static final LongAdder dropped = new LongAdder();
+    private static final int[] thresholds = new int[Category.values().length];
+    private static final boolean colored = System.console() != null; // no escape codes in redirected output
+    private static final TimeZone zone = TimeZone.getDefault();
+
+    static {
+        for (int i = 0; i < CAPACITY; i++) {
+            ring[i] = new Slot();
+            ring[i].sequence = i;
+        }
+        setLevel(Level.INFO);
+        Thread writer = new Thread(Log::writeLoop, "log-writer");
+        writer.setDaemon(true);
+        writer.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(Log::flush, "log-flush"));
+    }
+
+    private Log() {
+    }
+
+    // Method to set the lowest level printed for every category
+    public static void setLevel(Level level) {
+        for (Category category : Category.values()) {
+            setLevel(category, level);
+        }
+    }
+
+    // Method to set the lowest level printed for one category
+    public static void setLevel(Category category, Level level) {
+        thresholds[category.ordinal()] = level.ordinal();
+    }
+
+    // Method to apply a spec such as "debug", "off" or "warn,game:debug,net:off"
+    public static void configure(String spec) {
+        for (String part : spec.split(",")) {
+            String[] pieces = part.trim().split(":");
+            try {
+                if (pieces.length == 1) {
+                    setLevel(Level.valueOf(pieces[0].trim().toUpperCase(Locale.ROOT)));
+                } else if (pieces.length == 2) {
+                    setLevel(Category.valueOf(pieces[0].trim().toUpperCase(Locale.ROOT)),
+                            Level.valueOf(pieces[1].trim().toUpperCase(Locale.ROOT)));
+                } else {
+                    throw new IllegalArgumentException();
+                }
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Invalid log setting: " + part);
+            }
+        }
+    }
+
+    // Method to check if a message would be printed, for call sites that need work to build their arguments
+    public static boolean isEnabled(Category category, Level level) {
+        return level.ordinal() >= thresholds[category.ordinal()];
+    }
+
+    public static void debug(Category category, String pattern) {
+        log(Level.DEBUG, category, pattern, null, null, null);
+    }
+
+    public static void debug(Category category, String pattern, Object first) {
+        log(Level.DEBUG, category, pattern, first, null, null);
+    }
+
+    public static void debug(Category category, String pattern, Object first, Object second) {
+        log(Level.DEBUG, category, pattern, first, second, null);
+    }
+
+    public static void debug(Category category, String pattern, Object first, Object second, Object third) {
+        log(Level.DEBUG, category, pattern, first, second, third);
+    }
+
+    public static void info(Category category, String pattern) {
+        log(Level.INFO, category, pattern, null, null, null);
+    }
+
+    public static void info(Category category, String pattern, Object first) {
+        log(Level.INFO, category, pattern, first, null, null);
+    }
+
+    public static void info(Category category, String pattern, Object first, Object second) {
+        log(Level.INFO, category, pattern, first, second, null);
+    }
+
+    public static void info(Category category, String pattern, Object first, Object second, Object third) {
+        log(Level.INFO, category, pattern, first, second, third);
+    }
+
+    public static void warn(Category category, String pattern) {
+        log(Level.WARN, category, pattern, null, null, null);
+    }
+
+    public static void warn(Category category, String pattern, Object first) {
+        log(Level.WARN, category, pattern, first, null, null);
+    }
+
+    public static void warn(Category category, String pattern, Object first, Object second) {
+        log(Level.WARN, category, pattern, first, second, null);
+    }
+
+    public static void error(Category category, String pattern) {
+        log(Level.ERROR, category, pattern, null, null, null);
+    }
+
+    public static void error(Category category, String pattern, Object first) {
+        log(Level.ERROR, category, pattern, first, null, null);
+    }
+
+    public static void error(Category category, String pattern, Object first, Object second) {
+        log(Level.ERROR, category, pattern, first, second, null);
+    }
+
+    // Method to claim a ring slot and publish the message pieces; arguments are formatted later,
+    // so they must not change after the call
+    private static void log(Level level, Category category, String pattern, Object first, Object second, Object third) {
+        if (level.ordinal() < thresholds[category.ordinal()]) {
+            return;
+        }
+        Slot slot;
+        long position;
+        while (true) {
+            position = tail.get();
+            slot = ring[(int) (position & MASK)];
+            long lag = slot.sequence - position;
+            if (lag == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    break;
+                }
+            } else if (lag < 0) {
+                dropped.increment(); // the writer has not freed this slot yet, the ring is full
+                return;
+            }
+            // otherwise another producer claimed this position first, try the next one
+        }
+        slot.time = System.currentTimeMillis();
+        slot.level = level;
+        slot.category = category;
+        slot.pattern = pattern;
+        slot.first = first;
+        slot.second = second;
+        slot.third = third;
+        slot.sequence = position + 1; // hands the slot to the writer
+    }
+
+    private static void writeLoop() {
+        StringBuilder out = new StringBuilder(8192);
+        while (true) {
+            if (drain(out) == 0) {
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+            }
+        }
+    }
+
+    // Method to print everything still in the ring, used on shutdown
+    public static void flush() {
+        StringBuilder out = new StringBuilder(8192);
+        while (drain(out) > 0) {
+        }
+    }
+
+    // Format up to MAX_BATCH messages and print them with one write; returns how many were taken
+    private static synchronized int drain(StringBuilder out) {
+        int count = 0;
+        while (count < MAX_BATCH) {
+            Slot slot = ring[(int) (head & MASK)];
+            if (slot.sequence != head + 1) {
+                break; // empty, or the producer has not finished writing this slot
+            }
+            format(out, slot);
+            slot.pattern = null;
+            slot.first = null;
+            slot.second = null;
+            slot.third = null;
+            slot.sequence = head + CAPACITY; // free for the producer one lap later
+            head++;
+            count++;
+        }
+        long lost = dropped.sumThenReset();
+        if (lost > 0) {
+            out.append(lost).append(" log messages dropped, the writer could not keep up").append(System.lineSeparator());
+        }
+        if (out.length() > 0) {
+            PrintStream stdout = System.out; // looked up each time so a redirected System.out is honoured
+            stdout.print(out);
+            stdout.flush();
+            out.setLength(0);
+        }
+        return count;
+    }
+
+    private static void format(StringBuilder out, Slot slot) {
+        long millisOfDay = Math.floorMod(slot.time + zone.getOffset(slot.time), 86400000L);
+        appendPadded(out, millisOfDay / 3600000, 2).append(':');
+        appendPadded(out, millisOfDay / 60000 % 60, 2).append(':');
+        appendPadded(out, millisOfDay / 1000 % 60, 2).append('.');
+        appendPadded(out, millisOfDay % 1000, 3).append(' ');
+        int start = out.length();
+        out.append(slot.level).append(" [").append(slot.category.name().toLowerCase(Locale.ROOT)).append("] ");
+        Object[] args = { slot.first, slot.second, slot.third };
+        int next = 0;
+        String pattern = slot.pattern;
+        int from = 0;
+        int at;
+        while (next < args.length && (at = pattern.indexOf("{}", from)) >= 0) {
+            out.append(pattern, from, at).append(args[next++]);
+            from = at + 2;
+        }
+        out.append(pattern, from, pattern.length());
+        if (colored && slot.level != Level.INFO) {
+            String color = slot.level == Level.DEBUG ? TextFX.BLUE : slot.level == Level.WARN ? TextFX.YELLOW : TextFX.RED;
+            String line = out.substring(start);
+            out.setLength(start);
+            out.append(TextFX.colorText(line, color));
+        }
+        out.append(System.lineSeparator());
+    }
+
+    private static StringBuilder appendPadded(StringBuilder out, long value, int width) {
+        for (long limit = 10; width > 1; width--, limit *= 10) {
+            if (value < limit) {
+                out.append('0');
+            }
+        }
+        return out.append(value);
+    }
+}
@@ -0,0 +1,150 @@
+package Project;
+
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.util.Locale;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Server-wide instrumentation: how long ServerThread.handlePayload takes to dispatch each
+ * PayloadType, how long the room tasks a payload posts take from posting to completion,
+ * what the writers send, and how late the round timers fire. Recording is an array index
+ * plus a few atomic adds, cheap enough for the I/O threads. Gauges such as rooms and
+ * connections are read from the Server when the metrics are rendered.
+ */
+public class Metrics {
+    private static final PayloadType[] TYPES = PayloadType.values();
+    private static final LatencyHistogram[] DISPATCH_TIMES = new LatencyHistogram[TYPES.length];
+    private static final LatencyHistogram[] ROOM_TASK_TIMES = new LatencyHistogram[TYPES.length];
+    private static final ThreadLocal<PayloadType> DISPATCHING = new ThreadLocal<>(); // the payload this thread is dispatching
+    private static final LatencyHistogram ROUND_TIMER_LAG = new LatencyHistogram();
+    private static final LongAdder OUTBOUND_MESSAGES = new LongAdder();
+    private static final LongAdder OUTBOUND_BYTES = new LongAdder();
+
+    // Histogram bucket bounds in nanoseconds, from 1 microsecond to 2.5 seconds
+    private static final long[] BOUNDS = {
+            1_000, 2_500, 5_000, 10_000, 25_000, 50_000, 100_000, 250_000, 500_000,
+            1_000_000, 2_500_000, 5_000_000, 10_000_000, 25_000_000, 50_000_000, 100_000_000,
+            250_000_000, 500_000_000, 1_000_000_000, 2_500_000_000L };
+    private static final String[] BOUND_LABELS = new String[BOUNDS.length];
+
+    static {
+        for (int i = 0; i < TYPES.length; i++) {
+            DISPATCH_TIMES[i] = new LatencyHistogram();
+            ROOM_TASK_TIMES[i] = new LatencyHistogram();
+        }
+        for (int i = 0; i < BOUNDS.length; i++) {
+            BOUND_LABELS[i] = seconds(BOUNDS[i]);
+        }
+    }
+
+    private Metrics() {
+    }
+
+    // Method to mark the payload type this thread is dispatching, null once done; room tasks posted meanwhile are timed under it
+    public static void setDispatching(PayloadType type) {
+        DISPATCHING.set(type);
+    }
+
+    // Getter for the payload type this thread is dispatching, null if none
+    public static PayloadType getDispatching() {
+        return DISPATCHING.get();
+    }
+
+    // Method to record how long dispatching one payload took on its connection thread
+    public static void recordDispatch(PayloadType type, long nanos) {
+        DISPATCH_TIMES[type.ordinal()].record(nanos);
+    }
+
+    // Method to record how long a room task posted for a payload took, from posting to completion
+    public static void recordRoomTask(PayloadType type, long nanos) {
+        ROOM_TASK_TIMES[type.ordinal()].record(nanos);
+    }
+
+    // Method to record one frame handed to a socket
+    public static void recordOutbound(int bytes) {
+        OUTBOUND_MESSAGES.increment();
+        OUTBOUND_BYTES.add(bytes);
+    }
+
+    // Method to record how long after its due time a round timer ran in its room
+    public static void recordRoundTimerLag(long nanos) {
+        ROUND_TIMER_LAG.record(nanos);
+    }
+
+    // Getter for how late round timers ran, for checks that drive many rooms
+    public static LatencyHistogram getRoundTimerLag() {
+        return ROUND_TIMER_LAG;
+    }
+
+    // Method to render every metric in the Prometheus text exposition format
+    public static String render(Server server) {
+        StringBuilder out = new StringBuilder(8192);
+        out.append("# HELP trivia_payload_dispatch_seconds Time the connection thread spends dispatching a payload, "
+                + "mostly posting it to a room, by payload type\n");
+        out.append("# TYPE trivia_payload_dispatch_seconds histogram\n");
+        appendHistograms(out, "trivia_payload_dispatch_seconds", DISPATCH_TIMES);
+        out.append("# HELP trivia_room_task_seconds Time from posting a payload's room task to its completion, "
+                + "waiting in the mailbox included, by payload type\n");
+        out.append("# TYPE trivia_room_task_seconds histogram\n");
+        appendHistograms(out, "trivia_room_task_seconds", ROOM_TASK_TIMES);
+        out.append("# HELP trivia_round_timer_lag_seconds How late round deadlines and TIME ticks ran in their room\n");
+        out.append("# TYPE trivia_round_timer_lag_seconds histogram\n");
+        appendHistogram(out, "trivia_round_timer_lag_seconds", "", ROUND_TIMER_LAG);
+
+        appendValue(out, "trivia_outbound_messages_total", "counter", "Frames handed to client sockets",
+                OUTBOUND_MESSAGES.sum());
+        appendValue(out, "trivia_outbound_bytes_total", "counter", "Bytes handed to client sockets", OUTBOUND_BYTES.sum());
+        appendValue(out, "trivia_connections", "gauge", "Open client connections", server.getServerThreads().size());
+        appendValue(out, "trivia_sessions", "gauge", "Sessions that can be resumed, including held ones",
+                server.getSessionCount());
+        appendValue(out, "trivia_rooms", "gauge", "Game rooms, including the lobby", server.getRoomCount());
+        appendValue(out, "trivia_scheduled_tasks", "gauge", "Timer tasks waiting in the game scheduler",
+                GameScheduler.getQueuedTasks());
+        appendValue(out, "trivia_uptime_seconds", "gauge", "Seconds since the server started",
+                (System.currentTimeMillis() - server.getStartTime()) / 1000.0);
+        appendValue(out, "trivia_heap_used_bytes", "gauge", "Heap in use",
+                ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed());
+        return out.toString();
+    }
+
+    // Append one histogram per payload type that has samples
+    private static void appendHistograms(StringBuilder out, String name, LatencyHistogram[] byType) {
+        for (PayloadType type : TYPES) {
+            LatencyHistogram histogram = byType[type.ordinal()];
+            if (histogram.getCount() > 0) {
+                appendHistogram(out, name, "type=\"" + type + "\",", histogram);
+            }
+        }
+    }
+
+    // Append the buckets, sum and count of one histogram; `labels` is empty or ends with a comma
+    private static void appendHistogram(StringBuilder out, String name, String labels, LatencyHistogram histogram) {
+        long count = histogram.getCount(); // read first, so no bucket claims more than the total
+        long[] cumulative = histogram.getCumulativeCounts(BOUNDS);
+        for (int i = 0; i < BOUNDS.length; i++) {
+            out.append(name).append("_bucket{").append(labels).append("le=\"").append(BOUND_LABELS[i]).append("\"} ")
+                    .append(Math.min(cumulative[i], count)).append('\n');
+        }
+        out.append(name).append("_bucket{").append(labels).append("le=\"+Inf\"} ").append(count).append('\n');
+        String plainLabels = labels.isEmpty() ? "" : "{" + labels.substring(0, labels.length() - 1) + "}";
+        out.append(name).append("_sum").append(plainLabels).append(' ').append(seconds(histogram.getSum())).append('\n');
+        out.append(name).append("_count").append(plainLabels).append(' ').append(count).append('\n');
+    }
+
+    private static void appendValue(StringBuilder out, String name, String type, String help, double value) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+        out.append(name).append(' ');
+        if (value == Math.rint(value)) {
+            out.append((long) value);
+        } else {
+            out.append(String.format(Locale.ROOT, "%.3f", value));
+        }
+        out.append('\n');
+    }
+
+    private static String seconds(long nanos) {
+        return BigDecimal.valueOf(nanos, 9).stripTrailingZeros().toPlainString();
+    }
+}
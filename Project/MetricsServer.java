@@ -0,0 +1,54 @@
+package Project;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Serves Metrics at http://127.0.0.1:PORT/metrics for a Prometheus scraper. It only listens
+ * on the loopback address and renders on its own thread, away from the game threads.
+ */
+public class MetricsServer {
+    private final Server server;
+    private final HttpServer http;
+
+    // Constructor
+    public MetricsServer(Server server, int port) throws IOException {
+        this.server = server;
+        this.http = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        http.createContext("/metrics", this::handle);
+    }
+
+    // Method to start answering scrapes
+    public void start() {
+        http.start();
+        System.out.println("Metrics available at http://127.0.0.1:" + http.getAddress().getPort() + "/metrics");
+    }
+
+    // Method to stop the endpoint
+    public void stop() {
+        http.stop(0);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            byte[] body = Metrics.render(server).getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+}
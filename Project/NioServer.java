@@ -0,0 +1,322 @@
+package Project;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Non-blocking server mode. The calling thread accepts sockets and hands them out
+ * round-robin to a small pool of event loops. Each loop owns its connections: it reads
+ * frames, decodes them and dispatches into ServerThread.handlePayload, and it writes
+ * queued frames when the socket is writable. No thread is created per connection.
+ */
+public class NioServer {
+    private static final int READ_BUFFER_SIZE = 8 * 1024;
+    private static final int MAX_GATHER = 64; // max buffers handed to a single gathering write
+
+    private final Server server;
+    private final int port;
+    private final EventLoop[] loops;
+    private volatile boolean running;
+    private ServerSocketChannel serverChannel;
+
+    // Constructor
+    public NioServer(Server server, int port, int loopCount) {
+        this.server = server;
+        this.port = port;
+        this.loops = new EventLoop[Math.max(1, loopCount)];
+    }
+
+    // Method to start the event loops and run the accept loop on the calling thread
+    public void start() {
+        try (ServerSocketChannel channel = ServerSocketChannel.open()) {
+            serverChannel = channel;
+            channel.bind(new InetSocketAddress(port), 1024);
+            running = true;
+            for (int i = 0; i < loops.length; i++) {
+                loops[i] = new EventLoop(i);
+                loops[i].start();
+            }
+            System.out.println("NIO server started on port: " + port + " with " + loops.length + " event loops");
+            int next = 0;
+            while (running) {
+                SocketChannel socketChannel = channel.accept(); // blocking accept, the loops never block
+                socketChannel.configureBlocking(false);
+                socketChannel.socket().setTcpNoDelay(true);
+                loops[next].register(socketChannel);
+                next = (next + 1) % loops.length;
+            }
+        } catch (IOException e) {
+            if (running) {
+                System.err.println("Error starting NIO server: " + e.getMessage());
+            }
+        } finally {
+            stop();
+        }
+    }
+
+    // Method to stop accepting and shut down every event loop
+    public void stop() {
+        running = false;
+        try {
+            if (serverChannel != null) {
+                serverChannel.close();
+            }
+        } catch (IOException e) {
+            System.err.println("Error closing server channel: " + e.getMessage());
+        }
+        for (EventLoop loop : loops) {
+            if (loop != null) {
+                loop.shutdown();
+            }
+        }
+    }
+
+    /**
+     * A single selector thread that owns a subset of the connections
+     */
+    private class EventLoop extends Thread {
+        private final Selector selector;
+        private final Queue<SocketChannel> pendingRegistrations = new ConcurrentLinkedQueue<>();
+        private final Queue<Connection> pendingWrites = new ConcurrentLinkedQueue<>();
+
+        EventLoop(int index) throws IOException {
+            super("nio-loop-" + index);
+            setDaemon(true);
+            selector = Selector.open();
+        }
+
+        void register(SocketChannel channel) {
+            pendingRegistrations.add(channel);
+            selector.wakeup();
+        }
+
+        void requestWrite(Connection connection) {
+            pendingWrites.add(connection);
+            selector.wakeup();
+        }
+
+        void shutdown() {
+            try {
+                selector.close();
+            } catch (IOException e) {
+                System.err.println("Error closing selector: " + e.getMessage());
+            }
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (running) {
+                    selector.select();
+                    registerPending();
+                    flushPending();
+                    Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                    while (keys.hasNext()) {
+                        SelectionKey key = keys.next();
+                        keys.remove();
+                        Connection connection = (Connection) key.attachment();
+                        if (!key.isValid()) {
+                            connection.close();
+                            continue;
+                        }
+                        try {
+                            if (key.isReadable()) {
+                                connection.onReadable();
+                            }
+                            if (key.isValid() && key.isWritable()) {
+                                connection.flush();
+                            }
+                        } catch (RuntimeException e) {
+                            // One misbehaving connection must not take the loop and its other sockets down
+                            Log.error(Log.Category.NET, "Closing a connection after an unexpected error: {}", e.toString());
+                            connection.close();
+                        }
+                    }
+                }
+            } catch (IOException | ClosedSelectorException e) {
+                if (running) {
+                    System.err.println("Event loop " + getName() + " stopped: " + e.getMessage());
+                }
+            }
+        }
+
+        private void registerPending() {
+            SocketChannel channel;
+            while ((channel = pendingRegistrations.poll()) != null) {
+                try {
+                    Connection connection = new Connection(this, channel);
+                    connection.key = channel.register(selector, SelectionKey.OP_READ, connection);
+                    server.addServerThread(connection.handler);
+                } catch (IOException e) {
+                    Log.warn(Log.Category.NET, "Error registering client: {}", e.getMessage());
+                }
+            }
+        }
+
+        private void flushPending() {
+            Connection connection;
+            while ((connection = pendingWrites.poll()) != null) {
+                connection.writeRequested.set(false);
+                connection.flush();
+            }
+        }
+    }
+
+    /**
+     * Per-socket state owned by exactly one event loop. Other threads may only call send().
+     */
+    class Connection {
+        private final EventLoop loop;
+        private final SocketChannel channel;
+        private final ServerThread handler;
+        private final ArrayDeque<ByteBuffer> writing = new ArrayDeque<>(); // loop-only, at most MAX_GATHER frames
+        private final AtomicBoolean writeRequested = new AtomicBoolean();
+        private final AtomicBoolean closed = new AtomicBoolean();
+        private ByteBuffer readBuffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+        private SelectionKey key;
+        private int wireVersion; // 0 until the client hello has been read
+
+        Connection(EventLoop loop, SocketChannel channel) {
+            this.loop = loop;
+            this.channel = channel;
+            this.handler = new ServerThread(server, this);
+        }
+
+        // Method to ask the loop to write whatever is in the handler's outbound queue; safe from any thread
+        void requestFlush() {
+            if (closed.get()) {
+                return;
+            }
+            if (Thread.currentThread() == loop) {
+                flush();
+            } else if (writeRequested.compareAndSet(false, true)) {
+                loop.requestWrite(this);
+            }
+        }
+
+        private void onReadable() {
+            try {
+                int read = channel.read(readBuffer);
+                if (read < 0) {
+                    close();
+                    return;
+                }
+                readBuffer.flip();
+                if (wireVersion == 0 && !readHello()) {
+                    readBuffer.compact();
+                    return;
+                }
+                while (readBuffer.remaining() >= Frames.HEADER_SIZE) {
+                    int length = readBuffer.getInt(readBuffer.position());
+                    Frames.checkLength(length);
+                    if (readBuffer.remaining() < Frames.HEADER_SIZE + length) {
+                        ensureCapacity(Frames.HEADER_SIZE + length);
+                        break;
+                    }
+                    readBuffer.position(readBuffer.position() + Frames.HEADER_SIZE);
+                    int start = readBuffer.arrayOffset() + readBuffer.position();
+                    Payload payload = Frames.decode(readBuffer.array(), start, length, wireVersion);
+                    readBuffer.position(readBuffer.position() + length);
+                    try {
+                        handler.handlePayload(payload);
+                    } catch (RuntimeException e) {
+                        Log.error(Log.Category.NET, "Error handling {}, closing the connection: {}", payload.getType(), e.toString());
+                        close();
+                        return;
+                    }
+                }
+                readBuffer.compact();
+            } catch (IOException e) {
+                Log.debug(Log.Category.NET, "Client disconnected: {}", e.getMessage());
+                close();
+            }
+        }
+
+        // Method to consume the client hello and reply with the agreed wire version
+        private boolean readHello() throws IOException {
+            if (readBuffer.remaining() < Frames.HELLO_SIZE) {
+                return false;
+            }
+            int magic = readBuffer.getShort() & 0xFFFF;
+            int offered = readBuffer.get() & 0xFF;
+            wireVersion = Frames.negotiate(magic, offered, server.getMaxWireVersion());
+            handler.setWireVersion(wireVersion);
+            writing.add(ByteBuffer.wrap(new byte[] { (byte) wireVersion }));
+            flush();
+            return true;
+        }
+
+        // Grow the read buffer so a frame larger than the default size fits
+        private void ensureCapacity(int frameSize) {
+            if (readBuffer.capacity() < frameSize) {
+                ByteBuffer larger = ByteBuffer.allocate(frameSize);
+                larger.put(readBuffer);
+                larger.flip();
+                readBuffer = larger;
+            }
+        }
+
+        private void flush() {
+            if (closed.get()) {
+                return;
+            }
+            try {
+                while (!writing.isEmpty() || fillFromQueue()) {
+                    channel.write(writing.toArray(new ByteBuffer[0])); // gathering write of up to MAX_GATHER frames
+                    while (!writing.isEmpty() && !writing.peek().hasRemaining()) {
+                        writing.poll();
+                    }
+                    if (!writing.isEmpty()) {
+                        break; // socket buffer is full, the rest waits in the bounded queue for OP_WRITE
+                    }
+                }
+                if (key != null && key.isValid()) {
+                    key.interestOps(writing.isEmpty() ? SelectionKey.OP_READ : SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+                }
+            } catch (IOException e) {
+                Log.debug(Log.Category.NET, "Error sending payload to client: {}", e.getMessage());
+                close();
+            }
+        }
+
+        // Method to move frames from the outbound queue into the gather batch
+        private boolean fillFromQueue() throws IOException {
+            OutboundQueue queue = handler.getOutboundQueue();
+            EncodedPayload next;
+            while (writing.size() < MAX_GATHER && (next = queue.poll()) != null) {
+                byte[] frame = next.frame(wireVersion);
+                writing.add(ByteBuffer.wrap(frame)); // shared frame bytes, no copy
+                Metrics.recordOutbound(frame.length);
+            }
+            return !writing.isEmpty();
+        }
+
+        // Method to close the socket; safe to call from any thread and only runs once
+        void close() {
+            if (!closed.compareAndSet(false, true)) {
+                return;
+            }
+            if (key != null) {
+                key.cancel();
+            }
+            // The outbound queue stays open, the server decides whether the session is held for a reconnect
+            try {
+                channel.close();
+            } catch (IOException e) {
+                Log.debug(Log.Category.NET, "Error disconnecting client: {}", e.getMessage());
+            }
+            server.removeClient(handler);
+        }
+    }
+}
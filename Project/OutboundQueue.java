@@ -0,0 +1,311 @@
+package Project;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.Objects;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounded queue of payloads waiting to be written to one client. Game code only enqueues,
+ * a dedicated writer (the connection's writer thread or its NIO event loop) drains it, so a
+ * slow client can no longer stall the room timers. When the queue is full the configured
+ * overflow policies decide what gives way. A delta SCOREBOARD is never simply lost: if it
+ * cannot be queued, the queued deltas go too and the queue asks the room for a full board.
+ */
+public class OutboundQueue {
+
+    public enum OverflowPolicy {
+        DROP_STALE_TIME, // a queued TIME tick is useless once a newer one exists
+        COALESCE_POINTS, // only the latest POINTS update per player matters, and a full SCOREBOARD replaces queued ones
+        DISCONNECT // give up on a client that cannot keep up
+    }
+
+    public static final int DEFAULT_CAPACITY = 256;
+
+    private final int capacity;
+    private final EnumSet<OverflowPolicy> policies;
+    private final ArrayDeque<EncodedPayload> queue = new ArrayDeque<>();
+    // ReentrantLock rather than synchronized so virtual writer threads don't pin their carrier
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private volatile long dropped; // written under the lock
+    private volatile long coalesced; // written under the lock
+    private boolean closed;
+    private boolean needsFullBoard; // a delta was lost, later deltas are useless until a full SCOREBOARD is queued
+    private boolean stopped; // no more taking; a resumed session's new connection takes over the payloads
+    private OutboundQueue forward; // set once the payloads have moved to a resumed session's new queue
+    private volatile ReplayBuffer replay; // records every payload taken for writing, null if sessions are off
+
+    // Constructor
+    public OutboundQueue(int capacity, EnumSet<OverflowPolicy> policies) {
+        this.capacity = Math.max(1, capacity);
+        this.policies = policies.clone();
+    }
+
+    /**
+     * Adds a payload, applying the overflow policies if the queue is full
+     *
+     * @param payload
+     * @return false if the client should be disconnected
+     */
+    public boolean offer(EncodedPayload payload) {
+        OutboundQueue target;
+        lock.lock();
+        try {
+            target = forward;
+            if (target == null) {
+                return enqueue(payload);
+            }
+        } finally {
+            lock.unlock();
+        }
+        return target.offer(payload); // the session resumed on another connection
+    }
+
+    // Method to add a payload under the lock, applying the overflow policies if the queue is full
+    private boolean enqueue(EncodedPayload payload) {
+        if (closed) {
+            return true;
+        }
+        boolean deltaBoard = isScoreboard(payload, true);
+        if (deltaBoard && needsFullBoard) {
+            coalesced++; // the full board the room sends next covers this change
+            return true;
+        }
+        if (queue.size() >= capacity && !makeRoom(payload)) {
+            if (deltaBoard) {
+                // Dropping only this delta would leave the client with a wrong board, so resync it instead
+                int before = queue.size();
+                queue.removeIf(queued -> isScoreboard(queued, true));
+                coalesced += before - queue.size() + 1;
+                needsFullBoard = true;
+                return true;
+            }
+            if (payload.getType() == PayloadType.TIME && policies.contains(OverflowPolicy.DROP_STALE_TIME)) {
+                dropped++; // the tick is already stale by the time this client would see it
+                return true;
+            }
+            if (policies.contains(OverflowPolicy.DISCONNECT)) {
+                return false;
+            }
+            dropped++; // nothing could give way, drop the newest payload
+            return true;
+        }
+        if (isScoreboard(payload, false)) {
+            needsFullBoard = false;
+        }
+        queue.addLast(payload);
+        notEmpty.signal();
+        return true;
+    }
+
+    private static boolean isScoreboard(EncodedPayload payload, boolean delta) {
+        return payload.getPayload() instanceof ScoreboardPayload
+                && ((ScoreboardPayload) payload.getPayload()).isDelta() == delta;
+    }
+
+    // Method to free a slot for the incoming payload, returns false if none could be freed
+    private boolean makeRoom(EncodedPayload incoming) {
+        if (policies.contains(OverflowPolicy.DROP_STALE_TIME)) {
+            int before = queue.size();
+            queue.removeIf(queued -> queued.getType() == PayloadType.TIME);
+            dropped += before - queue.size();
+            if (queue.size() < capacity) {
+                return true;
+            }
+        }
+        if (policies.contains(OverflowPolicy.COALESCE_POINTS) && incoming.getType() == PayloadType.POINTS) {
+            String player = incoming.getPayload().getClientId();
+            int before = queue.size();
+            queue.removeIf(queued -> queued.getType() == PayloadType.POINTS
+                    && Objects.equals(queued.getPayload().getClientId(), player));
+            coalesced += before - queue.size();
+        }
+        if (policies.contains(OverflowPolicy.COALESCE_POINTS) && isScoreboard(incoming, false)) {
+            int before = queue.size();
+            queue.removeIf(queued -> queued.getType() == PayloadType.SCOREBOARD);
+            coalesced += before - queue.size();
+        }
+        return queue.size() < capacity;
+    }
+
+    // Method to take the next payload, waiting until one arrives; returns null once closed or stopped
+    public EncodedPayload take() throws InterruptedException {
+        lock.lock();
+        try {
+            while (queue.isEmpty() && !closed && !stopped) {
+                notEmpty.await();
+            }
+            return next();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Method to take the next payload if one is waiting
+    public EncodedPayload poll() {
+        lock.lock();
+        try {
+            return next();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Taking and recording happen under the lock, so once stopTaking() returns every payload
+    // that left the queue is in the replay buffer
+    private EncodedPayload next() {
+        if (stopped) {
+            return null;
+        }
+        EncodedPayload payload = queue.pollFirst();
+        ReplayBuffer buffer = replay;
+        if (payload != null && buffer != null && payload.getType() != PayloadType.RESUME) {
+            buffer.record(payload);
+        }
+        return payload;
+    }
+
+    // Setter for the buffer that records payloads as they are taken for writing
+    public void setReplayBuffer(ReplayBuffer replay) {
+        this.replay = replay;
+    }
+
+    // Method to stop handing out payloads, for a connection whose session is moving to a new one
+    public void stopTaking() {
+        lock.lock();
+        try {
+            stopped = true;
+            notEmpty.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Method to move the waiting payloads to `target`, after any already there, and forward every later offer
+    public void forwardTo(OutboundQueue target) {
+        lock.lock();
+        try {
+            stopped = true;
+            forward = target;
+            target.requeue(queue);
+            if (needsFullBoard) {
+                target.requestFullBoard();
+            }
+            queue.clear();
+            notEmpty.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Method to append payloads that were already accepted once, so capacity does not apply
+    public void requeue(Collection<EncodedPayload> payloads) {
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            queue.addAll(payloads);
+            notEmpty.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Method to check if a delta SCOREBOARD was lost, so the next scoreboard for this client must be a full one
+    public boolean needsFullBoard() {
+        OutboundQueue target;
+        lock.lock();
+        try {
+            target = forward;
+            if (target == null) {
+                return needsFullBoard;
+            }
+        } finally {
+            lock.unlock();
+        }
+        return target.needsFullBoard();
+    }
+
+    private void requestFullBoard() {
+        lock.lock();
+        try {
+            needsFullBoard = true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Method to stop accepting payloads and wake up the writer
+    public void close() {
+        lock.lock();
+        try {
+            closed = true;
+            queue.clear();
+            notEmpty.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Method to check if the queue was closed, which ends the client's session
+    public boolean isClosed() {
+        lock.lock();
+        try {
+            return closed;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Getter for the number of payloads waiting to be written
+    public int size() {
+        lock.lock();
+        try {
+            return queue.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Getter for the number of payloads dropped because the client fell behind
+    public long getDropped() {
+        return dropped;
+    }
+
+    // Getter for the number of POINTS and SCOREBOARD updates replaced by a newer one
+    public long getCoalesced() {
+        return coalesced;
+    }
+
+    // Method to parse a comma separated policy list such as "drop-time,coalesce-points"
+    public static EnumSet<OverflowPolicy> parsePolicies(String value) {
+        EnumSet<OverflowPolicy> policies = EnumSet.noneOf(OverflowPolicy.class);
+        for (String name : value.split(",")) {
+            switch (name.trim().toLowerCase()) {
+                case "drop-time":
+                    policies.add(OverflowPolicy.DROP_STALE_TIME);
+                    break;
+                case "coalesce-points":
+                    policies.add(OverflowPolicy.COALESCE_POINTS);
+                    break;
+                case "disconnect":
+                    policies.add(OverflowPolicy.DISCONNECT);
+                    break;
+                case "":
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown overflow policy: " + name);
+            }
+        }
+        return policies;
+    }
+
+    // Method to get the default policies
+    public static EnumSet<OverflowPolicy> defaultPolicies() {
+        return EnumSet.of(OverflowPolicy.DROP_STALE_TIME, OverflowPolicy.COALESCE_POINTS);
+    }
+}
@@ -0,0 +1,376 @@
+package Project;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Hand-written binary encoding for frame bodies (wire version 2).
+ *
+ * Body layout: varint PayloadType ordinal, one byte payload kind, clientId, message,
+ * then the fields of the subclass named by the kind. Ints and longs are zigzag varints,
+ * strings are a varint of (UTF-8 byte length + 1) followed by the bytes, 0 meaning null.
+ */
+public class PayloadCodec {
+    // Payload kinds, one per Payload class that can go over the wire
+    private static final byte KIND_PAYLOAD = 0;
+    private static final byte KIND_QA = 1;
+    private static final byte KIND_TIME = 2;
+    private static final byte KIND_POINTS = 3;
+    private static final byte KIND_CONNECTION = 4;
+    private static final byte KIND_CLOCK = 5;
+    private static final byte KIND_SCOREBOARD = 6;
+    private static final byte KIND_ROOM_STATE = 7;
+    private static final byte KIND_RESUME = 8;
+
+    private static final RoomStatePayload.Phase[] PHASES = RoomStatePayload.Phase.values();
+
+    private static final PayloadType[] TYPES = PayloadType.values();
+
+    private PayloadCodec() {
+    }
+
+    // Method to encode a payload body
+    public static byte[] encode(Payload payload) {
+        Writer writer = new Writer(64);
+        encode(payload, writer);
+        return writer.toByteArray();
+    }
+
+    // Method to encode a payload body after `headerSize` reserved bytes, used to build frames in one buffer
+    static byte[] encode(Payload payload, int headerSize) {
+        Writer writer = new Writer(64);
+        writer.position = headerSize;
+        encode(payload, writer);
+        return writer.toByteArray();
+    }
+
+    private static void encode(Payload payload, Writer writer) {
+        writer.writeVarInt(payload.getType().ordinal());
+        if (payload instanceof QAPayload) {
+            QAPayload qa = (QAPayload) payload;
+            writer.writeByte(KIND_QA);
+            writeCommon(payload, writer);
+            writer.writeString(qa.getQuestion());
+            writeStrings(qa.getAnswerOptions(), writer);
+            writer.writeVarLong(zigzag(qa.getDeadline()));
+        } else if (payload instanceof TimePayload) {
+            writer.writeByte(KIND_TIME);
+            writeCommon(payload, writer);
+            writer.writeVarLong(zigzag(((TimePayload) payload).getTimeRemaining()));
+        } else if (payload instanceof PointsPayload) {
+            writer.writeByte(KIND_POINTS);
+            writeCommon(payload, writer);
+            writer.writeVarInt(zigzag(((PointsPayload) payload).getPoints()));
+        } else if (payload instanceof ClockPayload) {
+            ClockPayload clock = (ClockPayload) payload;
+            writer.writeByte(KIND_CLOCK);
+            writeCommon(payload, writer);
+            writer.writeVarLong(zigzag(clock.getClientTime()));
+            writer.writeVarLong(zigzag(clock.getServerTime()));
+        } else if (payload instanceof ScoreboardPayload) {
+            writer.writeByte(KIND_SCOREBOARD);
+            writeCommon(payload, writer);
+            writeScoreboard((ScoreboardPayload) payload, writer);
+        } else if (payload instanceof RoomStatePayload) {
+            RoomStatePayload state = (RoomStatePayload) payload;
+            writer.writeByte(KIND_ROOM_STATE);
+            writeCommon(payload, writer);
+            writer.writeVarLong(state.getVersion());
+            writer.writeByte(state.getPhase().ordinal());
+            writer.writeString(state.getQuestion());
+            writeStrings(state.getAnswerOptions(), writer);
+            writer.writeVarLong(zigzag(state.getDeadline()));
+            writer.writeVarLong(zigzag(state.getTimeRemaining()));
+            writeScoreboard(state.getScoreboard(), writer);
+            writeStrings(state.getReadyNames(), writer);
+            writer.writeVarInt(state.getMemberCount());
+            writer.writeVarInt(state.getReadyCount());
+        } else if (payload instanceof ResumePayload) {
+            ResumePayload resume = (ResumePayload) payload;
+            writer.writeByte(KIND_RESUME);
+            writeCommon(payload, writer);
+            writer.writeString(resume.getToken());
+            writer.writeVarLong(resume.getLastSequence());
+        } else if (payload instanceof ConnectionPayload) {
+            writer.writeByte(KIND_CONNECTION);
+            writeCommon(payload, writer);
+            writer.writeString(((ConnectionPayload) payload).getRoomName());
+        } else {
+            writer.writeByte(KIND_PAYLOAD);
+            writeCommon(payload, writer);
+        }
+    }
+
+    private static void writeCommon(Payload payload, Writer writer) {
+        writer.writeString(payload.getClientId());
+        writer.writeString(payload.getMessage());
+    }
+
+    // Scoreboard fields, shared by SCOREBOARD and the board inside ROOM_STATE
+    private static void writeScoreboard(ScoreboardPayload board, Writer writer) {
+        writer.writeByte(board.isDelta() ? 1 : 0);
+        writer.writeVarInt(board.size());
+        for (int i = 0; i < board.size(); i++) {
+            writer.writeString(board.getNames()[i]);
+            writer.writeVarInt(zigzag(board.getScores()[i]));
+            writer.writeVarInt(board.getRanks()[i]);
+        }
+        writeStrings(board.getRemoved(), writer);
+    }
+
+    // A string array as a varint of (length + 1) and the strings, 0 meaning null
+    private static void writeStrings(String[] values, Writer writer) {
+        writer.writeVarInt(values == null ? 0 : values.length + 1);
+        if (values != null) {
+            for (String value : values) {
+                writer.writeString(value);
+            }
+        }
+    }
+
+    // Method to decode a payload body
+    public static Payload decode(byte[] body, int offset, int length) throws IOException {
+        Reader reader = new Reader(body, offset, length);
+        try {
+            int ordinal = reader.readVarInt();
+            if (ordinal < 0 || ordinal >= TYPES.length) {
+                throw new IOException("Unknown payload type: " + ordinal);
+            }
+            PayloadType type = TYPES[ordinal];
+            byte kind = reader.readByte();
+            String clientId = reader.readString();
+            String message = reader.readString();
+            Payload payload;
+            switch (kind) {
+                case KIND_PAYLOAD:
+                    payload = new Payload(clientId, message, type);
+                    break;
+                case KIND_QA:
+                    String question = reader.readString();
+                    String[] options = readStrings(reader);
+                    QAPayload qa = new QAPayload(clientId, message, type, question, options);
+                    qa.setDeadline(unzigzag(reader.readVarLong()));
+                    payload = qa;
+                    break;
+                case KIND_TIME:
+                    payload = new TimePayload(clientId, message, type, unzigzag(reader.readVarLong()));
+                    break;
+                case KIND_POINTS:
+                    payload = new PointsPayload(clientId, message, type, unzigzag(reader.readVarInt()));
+                    break;
+                case KIND_CLOCK:
+                    long clientTime = unzigzag(reader.readVarLong());
+                    payload = new ClockPayload(clientId, message, type, clientTime, unzigzag(reader.readVarLong()));
+                    break;
+                case KIND_SCOREBOARD:
+                    payload = readScoreboard(reader, clientId, message, type);
+                    break;
+                case KIND_ROOM_STATE:
+                    long version = reader.readVarLong();
+                    int phase = reader.readByte();
+                    if (phase < 0 || phase >= PHASES.length) {
+                        throw new IOException("Unknown room phase: " + phase);
+                    }
+                    String openQuestion = reader.readString();
+                    String[] answerOptions = readStrings(reader);
+                    long deadline = unzigzag(reader.readVarLong());
+                    long timeRemaining = unzigzag(reader.readVarLong());
+                    ScoreboardPayload board = readScoreboard(reader, clientId, message, PayloadType.SCOREBOARD);
+                    String[] readyNames = readStrings(reader);
+                    int memberCount = reader.readVarInt();
+                    payload = new RoomStatePayload(clientId, message, type, version, PHASES[phase], openQuestion,
+                            answerOptions, deadline, timeRemaining, board, readyNames, memberCount, reader.readVarInt());
+                    break;
+                case KIND_RESUME:
+                    String token = reader.readString();
+                    payload = new ResumePayload(clientId, message, type, token, reader.readVarLong());
+                    break;
+                case KIND_CONNECTION:
+                    payload = new ConnectionPayload(clientId, message, type, reader.readString());
+                    break;
+                default:
+                    throw new IOException("Unknown payload kind: " + kind);
+            }
+            if (reader.position != reader.limit) {
+                throw new IOException("Trailing bytes in frame: " + (reader.limit - reader.position));
+            }
+            return payload;
+        } catch (IndexOutOfBoundsException e) {
+            throw new IOException("Truncated frame", e);
+        }
+    }
+
+    private static ScoreboardPayload readScoreboard(Reader reader, String clientId, String message, PayloadType type)
+            throws IOException {
+        boolean delta = reader.readByte() != 0;
+        int count = reader.readCount();
+        String[] names = new String[count];
+        int[] scores = new int[count];
+        int[] ranks = new int[count];
+        for (int i = 0; i < count; i++) {
+            names[i] = reader.readString();
+            scores[i] = unzigzag(reader.readVarInt());
+            ranks[i] = reader.readVarInt();
+        }
+        String[] removed = readStrings(reader);
+        return new ScoreboardPayload(clientId, message, type, delta, names, scores, ranks,
+                removed == null ? new String[0] : removed);
+    }
+
+    private static String[] readStrings(Reader reader) throws IOException {
+        int count = reader.readVarInt();
+        if (count == 0) {
+            return null;
+        }
+        if (count < 0 || count - 1 > reader.limit - reader.position) {
+            throw new IndexOutOfBoundsException(); // every string takes at least one byte
+        }
+        String[] values = new String[count - 1];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = reader.readString();
+        }
+        return values;
+    }
+
+    private static int zigzag(int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static int unzigzag(int value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * Growable byte buffer with the varint and string primitives
+     */
+    private static class Writer {
+        private byte[] bytes;
+        private int position;
+
+        Writer(int capacity) {
+            bytes = new byte[capacity];
+        }
+
+        void writeByte(int value) {
+            ensure(1);
+            bytes[position++] = (byte) value;
+        }
+
+        void writeVarInt(int value) {
+            ensure(5);
+            while ((value & ~0x7F) != 0) {
+                bytes[position++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            bytes[position++] = (byte) value;
+        }
+
+        void writeVarLong(long value) {
+            ensure(10);
+            while ((value & ~0x7FL) != 0) {
+                bytes[position++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            bytes[position++] = (byte) value;
+        }
+
+        void writeString(String value) {
+            if (value == null) {
+                writeVarInt(0);
+                return;
+            }
+            byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+            writeVarInt(utf8.length + 1);
+            ensure(utf8.length);
+            System.arraycopy(utf8, 0, bytes, position, utf8.length);
+            position += utf8.length;
+        }
+
+        byte[] toByteArray() {
+            return position == bytes.length ? bytes : Arrays.copyOf(bytes, position);
+        }
+
+        private void ensure(int extra) {
+            if (position + extra > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, position + extra));
+            }
+        }
+    }
+
+    /**
+     * Bounds-checked cursor over a frame body
+     */
+    private static class Reader {
+        private final byte[] bytes;
+        private int position;
+        private final int limit;
+
+        Reader(byte[] bytes, int offset, int length) {
+            this.bytes = bytes;
+            this.position = offset;
+            this.limit = offset + length;
+        }
+
+        byte readByte() {
+            if (position >= limit) {
+                throw new IndexOutOfBoundsException();
+            }
+            return bytes[position++];
+        }
+
+        int readVarInt() throws IOException {
+            int value = 0;
+            for (int shift = 0; shift < 35; shift += 7) {
+                byte b = readByte();
+                value |= (b & 0x7F) << shift;
+                if (b >= 0) {
+                    return value;
+                }
+            }
+            throw new IOException("Malformed varint");
+        }
+
+        long readVarLong() throws IOException {
+            long value = 0;
+            for (int shift = 0; shift < 70; shift += 7) {
+                byte b = readByte();
+                value |= (long) (b & 0x7F) << shift;
+                if (b >= 0) {
+                    return value;
+                }
+            }
+            throw new IOException("Malformed varint");
+        }
+
+        // An element count; every element takes at least one byte, which bounds it before anything is allocated
+        int readCount() throws IOException {
+            int count = readVarInt();
+            if (count < 0 || count > limit - position) {
+                throw new IndexOutOfBoundsException();
+            }
+            return count;
+        }
+
+        String readString() throws IOException {
+            int length = readVarInt() - 1;
+            if (length == -1) {
+                return null;
+            }
+            if (length < 0 || length > limit - position) {
+                throw new IndexOutOfBoundsException();
+            }
+            String value = new String(bytes, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return value;
+        }
+    }
+}
@@ -17,5 +17,9 @@ public enum PayloadType {
     RESET_POINTS,
     QUESTION_TIMER,
     AWAY_STATUS,
-    SELECTED_CATEGORIES
+    SELECTED_CATEGORIES,
+    CLOCK_SYNC,
+    SCOREBOARD,
+    ROOM_STATE,
+    RESUME
 }
@@ -2,6 +2,7 @@ package Project;
 class QAPayload extends Payload {
     private String question;
     private String[] answerOptions;
+    private long deadline; // Server clock time the question closes, 0 if unknown
 
     public QAPayload(String clientId, String message, PayloadType type, String question, String[] answerOptions) {
         super(clientId, message, type);
@@ -25,9 +26,17 @@ class QAPayload extends Payload {
         this.answerOptions = answerOptions;
     }
 
+    public long getDeadline() {
+        return deadline;
+    }
+
+    public void setDeadline(long deadline) {
+        this.deadline = deadline;
+    }
+
     @Override
     public String toString() {
-        return "QAPayload [clientId=" + getClientId() + ", message=" + getMessage() + ", type=" + getType() + ", question=" + question + ", answerOptions=" + String.join(", ", answerOptions) + "]";
+        return "QAPayload [clientId=" + getClientId() + ", message=" + getMessage() + ", type=" + getType() + ", question=" + question + ", answerOptions=" + String.join(", ", answerOptions) + ", deadline=" + deadline + "]";
     }
 }
 // ma2633 || 11/12
\ No newline at end of file
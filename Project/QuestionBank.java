@@ -0,0 +1,309 @@
+package Project;
+
+import java.io.BufferedReader;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Server-wide, immutable question store shared by every GameRoom.
+ *
+ * questions.txt is parsed once into a compact binary file next to it (rebuilt only when the
+ * text is newer), which is then memory-mapped read-only. Lookups by question index and by
+ * (category, position) are O(1) reads from the mapping with no allocation; only get()
+ * materializes a Question object.
+ *
+ * File layout (big-endian):
+ *   header:     int magic, int version, int questionCount, int categoryCount
+ *   categories: per category short nameLength, name bytes, int start, int count
+ *   offsets:    int[questionCount] absolute offset of each record; questions are numbered
+ *               category by category, so (start, count) is that category's slice of this table
+ *   records:    short categoryId, byte optionCount, then text, options and correct answer
+ *               as (short length, UTF-8 bytes)
+ */
+public class QuestionBank {
+    private static final int MAGIC = 0x51424E4B; // "QBNK"
+    private static final int VERSION = 1;
+    private static final String DEFAULT_PATH = "Project/questions.txt";
+
+    private static String defaultPath = DEFAULT_PATH;
+    private static QuestionBank defaultBank;
+
+    private final MappedByteBuffer buffer;
+    private final int questionCount;
+    private final String[] categoryNames;
+    private final int[] categoryStart; // first question index of each category
+    private final int[] categoryCount;
+    private final int offsetsBase; // position of the offsets table
+
+    private QuestionBank(MappedByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            throw new IOException("Not a question bank file");
+        }
+        questionCount = buffer.getInt(8);
+        int categories = buffer.getInt(12);
+        categoryNames = new String[categories];
+        categoryStart = new int[categories];
+        categoryCount = new int[categories];
+        int position = 16;
+        for (int i = 0; i < categories; i++) {
+            int length = buffer.getShort(position) & 0xFFFF;
+            categoryNames[i] = readUtf8(position + 2, length);
+            position += 2 + length;
+            categoryStart[i] = buffer.getInt(position);
+            categoryCount[i] = buffer.getInt(position + 4);
+            position += 8;
+        }
+        offsetsBase = position;
+    }
+
+    // Method to get the bank every room shares, built and mapped on first use
+    public static synchronized QuestionBank getDefault() {
+        if (defaultBank == null) {
+            try {
+                defaultBank = open(Paths.get(defaultPath));
+            } catch (IOException e) {
+                System.err.println("Error loading questions: " + e.getMessage());
+                defaultBank = empty();
+            }
+        }
+        return defaultBank;
+    }
+
+    // Method to choose the questions file before the default bank is first used
+    public static synchronized void setDefaultPath(String path) {
+        defaultPath = path;
+        defaultBank = null;
+    }
+
+    // Method to open a bank for a questions.txt file, rebuilding its binary form if it is missing or stale
+    public static QuestionBank open(Path textFile) throws IOException {
+        Path binaryFile = textFile.resolveSibling(textFile.getFileName() + ".bin");
+        if (!Files.exists(binaryFile)
+                || Files.getLastModifiedTime(binaryFile).compareTo(Files.getLastModifiedTime(textFile)) < 0) {
+            build(textFile, binaryFile);
+        }
+        try {
+            return map(binaryFile);
+        } catch (IOException e) {
+            // An old or damaged binary file, build it again from the text
+            build(textFile, binaryFile);
+            return map(binaryFile);
+        }
+    }
+
+    private static QuestionBank map(Path binaryFile) throws IOException {
+        try (FileChannel channel = FileChannel.open(binaryFile, StandardOpenOption.READ)) {
+            // The mapping stays valid after the channel is closed
+            return new QuestionBank(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    private static QuestionBank empty() {
+        ByteBuffer header = ByteBuffer.allocate(16).putInt(MAGIC).putInt(VERSION).putInt(0).putInt(0);
+        try {
+            Path file = Files.createTempFile("questions", ".bin");
+            file.toFile().deleteOnExit();
+            Files.write(file, header.array());
+            return map(file);
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to create an empty question bank", e);
+        }
+    }
+
+    // Method to parse questions.txt ("question;category;a,b,c,d;correct" per line) into the binary format
+    public static void build(Path textFile, Path binaryFile) throws IOException {
+        Map<String, List<String[]>> byCategory = new LinkedHashMap<>();
+        int total = 0;
+        int invalid = 0;
+        try (BufferedReader reader = Files.newBufferedReader(textFile, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] parts = line.split(";", 4);
+                if (parts.length == 4) {
+                    byCategory.computeIfAbsent(parts[1], key -> new ArrayList<>()).add(parts);
+                    total++;
+                } else if (!line.isEmpty()) {
+                    invalid++;
+                }
+            }
+        }
+        if (byCategory.size() > Short.MAX_VALUE) {
+            throw new IOException("Too many categories: " + byCategory.size());
+        }
+
+        // Questions are numbered category by category, so each category's indexes are one contiguous run
+        int headerSize = 16;
+        List<byte[]> names = new ArrayList<>();
+        for (String name : byCategory.keySet()) {
+            byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+            names.add(bytes);
+            headerSize += 2 + bytes.length + 8;
+        }
+        int recordsBase = headerSize + total * 4;
+
+        Path temp = Files.createTempFile(binaryFile.toAbsolutePath().getParent(), "questions", ".tmp");
+        try {
+            writeBank(temp, byCategory, names, total, recordsBase);
+            Files.move(temp, binaryFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        System.out.println("Question bank built: " + total + " questions in " + byCategory.size() + " categories"
+                + (invalid > 0 ? ", " + invalid + " invalid lines skipped" : ""));
+    }
+
+    private static void writeBank(Path temp, Map<String, List<String[]>> byCategory, List<byte[]> names,
+            int total, int recordsBase) throws IOException {
+        try (OutputStream file = Files.newOutputStream(temp);
+                DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file, 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(total);
+            out.writeInt(byCategory.size());
+            int start = 0;
+            int category = 0;
+            for (List<String[]> questions : byCategory.values()) {
+                byte[] name = names.get(category++);
+                out.writeShort(name.length);
+                out.write(name);
+                out.writeInt(start);
+                out.writeInt(questions.size());
+                start += questions.size();
+            }
+            // offsets table, computed from the record sizes
+            int offset = recordsBase;
+            for (List<String[]> questions : byCategory.values()) {
+                for (String[] parts : questions) {
+                    out.writeInt(offset);
+                    offset += recordSize(parts);
+                }
+            }
+            category = 0;
+            for (List<String[]> questions : byCategory.values()) {
+                for (String[] parts : questions) {
+                    writeRecord(out, category, parts);
+                }
+                category++;
+            }
+        }
+    }
+
+    private static int recordSize(String[] parts) {
+        int size = 3 + stringSize(parts[0]) + stringSize(parts[3]);
+        for (String option : parts[2].split(",")) {
+            size += stringSize(option);
+        }
+        return size;
+    }
+
+    private static int stringSize(String value) {
+        return 2 + value.getBytes(StandardCharsets.UTF_8).length;
+    }
+
+    private static void writeRecord(DataOutputStream out, int category, String[] parts) throws IOException {
+        String[] options = parts[2].split(",");
+        out.writeShort(category);
+        out.writeByte(options.length);
+        writeString(out, parts[0]);
+        for (String option : options) {
+            writeString(out, option);
+        }
+        writeString(out, parts[3]);
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > 0xFFFF) {
+            throw new IOException("Question text too long: " + value.substring(0, 40) + "...");
+        }
+        out.writeShort(bytes.length);
+        out.write(bytes);
+    }
+
+    // Getter for the number of questions
+    public int size() {
+        return questionCount;
+    }
+
+    // Getter for the number of categories
+    public int getCategoryCount() {
+        return categoryNames.length;
+    }
+
+    // Getter for a category's name
+    public String getCategoryName(int category) {
+        return categoryNames[category];
+    }
+
+    // Method to find a category by name (case-insensitive), -1 if there is none
+    public int findCategory(String name) {
+        for (int i = 0; i < categoryNames.length; i++) {
+            if (categoryNames[i].equalsIgnoreCase(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // Getter for the number of questions in a category
+    public int getCategorySize(int category) {
+        return categoryCount[category];
+    }
+
+    // Method to get the question index at `position` inside a category, O(1) and allocation-free
+    public int questionInCategory(int category, int position) {
+        return categoryStart[category] + position;
+    }
+
+    // Method to get the category of a question without materializing it
+    public int getQuestionCategory(int index) {
+        return buffer.getShort(buffer.getInt(offsetsBase + index * 4));
+    }
+
+    // Method to materialize a question
+    public Question get(int index) {
+        if (index < 0 || index >= questionCount) {
+            throw new IndexOutOfBoundsException("Question " + index + " of " + questionCount);
+        }
+        int position = buffer.getInt(offsetsBase + index * 4);
+        String category = categoryNames[buffer.getShort(position)];
+        int optionCount = buffer.get(position + 2) & 0xFF;
+        position += 3;
+        String text = readString(position);
+        position += 2 + (buffer.getShort(position) & 0xFFFF);
+        String[] options = new String[optionCount];
+        for (int i = 0; i < optionCount; i++) {
+            options[i] = readString(position);
+            position += 2 + (buffer.getShort(position) & 0xFFFF);
+        }
+        String correct = readString(position);
+        return new Question(text, category, Arrays.asList(options), correct);
+    }
+
+    private String readString(int position) {
+        return readUtf8(position + 2, buffer.getShort(position) & 0xFFFF);
+    }
+
+    private String readUtf8(int position, int length) {
+        byte[] bytes = new byte[length];
+        buffer.get(position, bytes); // absolute read, safe from any thread
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,140 @@
+package Project;
+
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * A room's draw-without-replacement cursor over the shared QuestionBank.
+ *
+ * This is a Fisher-Yates shuffle done lazily: drawing swaps a random remaining slot into the
+ * cursor position and advances the cursor. Only swapped slots are remembered, in a small
+ * open-addressing int map, so a deck over a million questions costs memory proportional to
+ * the questions actually drawn. A draw is O(1) and allocation-free once the map has grown.
+ *
+ * The deck can be limited to some categories. Deck slots then run over those categories'
+ * slices of the bank one after another, and a slot is turned into a question index with
+ * the per-category prefix sums.
+ */
+public class QuestionDeck {
+    private final QuestionBank bank;
+    private int[] categories; // selected category ids, null for the whole bank
+    private int[] categoryEnds; // deck slot just past each selected category
+    private int size; // number of slots in the deck
+    private int cursor; // slots before the cursor have been drawn
+    // Slots whose value differs from their position; key -1 marks an empty entry
+    private int[] keys = new int[16];
+    private int[] values = new int[16];
+    private int entries;
+
+    // Constructor
+    public QuestionDeck(QuestionBank bank) {
+        this.bank = bank;
+        Arrays.fill(keys, -1);
+        reset();
+    }
+
+    // Method to limit the deck to some categories (null or empty for all) and put every question back
+    public void setCategories(int[] categoryIds) {
+        if (categoryIds == null || categoryIds.length == 0) {
+            categories = null;
+            categoryEnds = null;
+        } else {
+            categories = categoryIds.clone();
+            categoryEnds = new int[categories.length];
+            int end = 0;
+            for (int i = 0; i < categories.length; i++) {
+                end += bank.getCategorySize(categories[i]);
+                categoryEnds[i] = end;
+            }
+        }
+        reset();
+    }
+
+    // Method to put every question back in the deck
+    public void reset() {
+        size = categories == null ? bank.size() : categoryEnds[categoryEnds.length - 1];
+        cursor = 0;
+        if (entries > 0) {
+            Arrays.fill(keys, -1);
+            entries = 0;
+        }
+    }
+
+    // Getter for the number of questions left to draw
+    public int remaining() {
+        return size - cursor;
+    }
+
+    // Method to draw a random question index that has not been drawn since the last reset, -1 if none are left
+    public int draw() {
+        if (cursor >= size) {
+            return -1;
+        }
+        int pick = cursor + ThreadLocalRandom.current().nextInt(size - cursor);
+        int drawn = slot(pick);
+        if (pick != cursor) {
+            put(pick, slot(cursor)); // the cursor's value takes the drawn slot's place
+        }
+        cursor++;
+        return toQuestion(drawn);
+    }
+
+    // Map a deck slot to a question index in the bank
+    private int toQuestion(int slot) {
+        if (categories == null) {
+            return slot;
+        }
+        int i = 0;
+        while (slot >= categoryEnds[i]) { // a handful of categories, a linear scan beats a search
+            i++;
+        }
+        int start = i == 0 ? 0 : categoryEnds[i - 1];
+        return bank.questionInCategory(categories[i], slot - start);
+    }
+
+    // Value of a slot, which is its own position unless it was swapped
+    private int slot(int position) {
+        int mask = keys.length - 1;
+        for (int i = mix(position) & mask; keys[i] != -1; i = (i + 1) & mask) {
+            if (keys[i] == position) {
+                return values[i];
+            }
+        }
+        return position;
+    }
+
+    private void put(int position, int value) {
+        if ((entries + 1) * 2 > keys.length) {
+            grow();
+        }
+        int mask = keys.length - 1;
+        int i = mix(position) & mask;
+        while (keys[i] != -1 && keys[i] != position) {
+            i = (i + 1) & mask;
+        }
+        if (keys[i] == -1) {
+            entries++;
+        }
+        keys[i] = position;
+        values[i] = value;
+    }
+
+    private void grow() {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new int[oldKeys.length * 2];
+        values = new int[oldValues.length * 2];
+        Arrays.fill(keys, -1);
+        entries = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != -1) {
+                put(oldKeys[i], oldValues[i]);
+            }
+        }
+    }
+
+    private static int mix(int value) {
+        int h = value * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
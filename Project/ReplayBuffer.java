@@ -0,0 +1,69 @@
+package Project;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * The last payloads written to one player, kept so a player who reconnects can be sent
+ * what the dropped connection lost. Payloads are numbered in the order they were handed to
+ * the socket, starting at 1; the client counts the frames it received the same way, so no
+ * sequence number has to travel with every frame. RESUME frames are not numbered.
+ */
+public class ReplayBuffer {
+    public static final int DEFAULT_CAPACITY = 256;
+
+    private final EncodedPayload[] ring;
+    private long written; // sequence number of the last payload recorded
+    private final ReentrantLock lock = new ReentrantLock();
+
+    // Constructor
+    public ReplayBuffer(int capacity) {
+        this.ring = new EncodedPayload[Math.max(1, capacity)];
+    }
+
+    // Method to record a payload about to be written to the socket
+    public void record(EncodedPayload payload) {
+        lock.lock();
+        try {
+            ring[(int) (written % ring.length)] = payload;
+            written++;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the payloads after `lastSequence`, oldest first, and forgets them so they are
+     * numbered the same way again when they are resent
+     *
+     * @param lastSequence
+     * @return null if some of them have already been overwritten
+     */
+    public List<EncodedPayload> since(long lastSequence) {
+        lock.lock();
+        try {
+            if (lastSequence < 0 || lastSequence > written || written - lastSequence > ring.length) {
+                return null;
+            }
+            List<EncodedPayload> missed = new ArrayList<>((int) (written - lastSequence));
+            for (long sequence = lastSequence; sequence < written; sequence++) {
+                missed.add(ring[(int) (sequence % ring.length)]);
+            }
+            written = lastSequence;
+            return missed;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Getter for the sequence number of the last payload recorded
+    public long getWritten() {
+        lock.lock();
+        try {
+            return written;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
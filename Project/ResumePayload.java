@@ -0,0 +1,29 @@
+package Project;
+
+// ResumePayload.java - Resume token handshake for reconnecting players
+public class ResumePayload extends Payload {
+    private String token; // null in the server's reply when the session could not be resumed
+    private long lastSequence; // number of frames the client received before the connection dropped
+
+    // Constructor
+    public ResumePayload(String clientId, String message, PayloadType type, String token, long lastSequence) {
+        super(clientId, message, type);
+        this.token = token;
+        this.lastSequence = lastSequence;
+    }
+
+    // Getter for the resume token
+    public String getToken() {
+        return token;
+    }
+
+    // Getter for the number of frames received
+    public long getLastSequence() {
+        return lastSequence;
+    }
+
+    @Override
+    public String toString() {
+        return "ResumePayload [clientId=" + getClientId() + ", message=" + getMessage() + ", type=" + getType() + ", lastSequence=" + lastSequence + "]";
+    }
+}
@@ -15,19 +15,20 @@ public class Room {
     // Method to add a client to the room
     public void addClient(ClientData client) {
         clients.add(client);
-        System.out.println(client.getName() + " joined the room " + roomName);
+        Log.info(Log.Category.ROOM, "{} joined the room {}", client.getName(), roomName);
     }
 
     // Method to remove a client from the room
     public void removeClient(ClientData client) {
         clients.remove(client);
-        System.out.println(client.getName() + " left the room " + roomName);
+        Log.info(Log.Category.ROOM, "{} left the room {}", client.getName(), roomName);
     }
 
     // Method to broadcast a message to all clients in the room
     public void broadcastMessage(Payload payload) {
+        EncodedPayload encoded = new EncodedPayload(payload); // encode once for every client
         for (ClientData client : clients) {
-            client.getServerThread().sendPayload(payload);
+            client.getServerThread().sendEncoded(encoded);
         }
     }
 
@@ -0,0 +1,468 @@
+package Project;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Write-ahead journal of every room's game state, so a restarted server can bring the rooms
+ * back with their players' points.
+ *
+ * Rooms call the transition methods from their mailbox; each one encodes a small record and
+ * copies it into a pending buffer under a short lock. A flush thread writes whatever is
+ * pending every FLUSH_MILLIS with one write and one force, then applies the same records to
+ * a per-room model of the journaled state. Every CHECKPOINT_RECORDS records the model is
+ * written to a checkpoint and the journal moves on to a new segment, so recovery reads one
+ * checkpoint and a short tail no matter how long the server has been up.
+ *
+ * Segments are named journal-NNNNNN.log. Record layout (big-endian):
+ *   header: int bodyLength, int CRC-32 of the body
+ *   body:   byte type, room name, then by type
+ *           READY player | COUNTDOWN | QUESTION int round, int questionIndex, long deadline |
+ *           ANSWER player, int points after the answer | ROUND_END int round | SESSION_END |
+ *           ROOM_CLOSED (the room emptied with no game running; it is dropped from the model)
+ *   strings are (short length, UTF-8 bytes)
+ * A short or damaged record ends a segment's replay. The checkpoint, journal.ckpt, is written
+ * to a temporary file and moved into place:
+ *   int magic, int version, int firstSegment (the tail starts there), int roomCount, per room
+ *   name, int round, byte phase, int questionIndex, long deadline, int playerCount, per player
+ *   name, int points, byte ready
+ */
+public class RoomJournal {
+    private static final String PREFIX = "journal-";
+    private static final String SUFFIX = ".log";
+    private static final String CHECKPOINT = "journal.ckpt";
+    private static final int MAGIC = 0x524A4E4C; // "RJNL"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 8;
+    private static final long FLUSH_MILLIS = 5;
+    private static final int CHECKPOINT_RECORDS = 50_000;
+
+    private static final byte READY = 1;
+    private static final byte COUNTDOWN = 2;
+    private static final byte QUESTION = 3;
+    private static final byte ANSWER = 4;
+    private static final byte ROUND_END = 5;
+    private static final byte SESSION_END = 6;
+    private static final byte ROOM_CLOSED = 7;
+
+    /**
+     * One room as the journal last saw it
+     */
+    public static class RoomState {
+        private final String roomName;
+        private int round;
+        private RoomStatePayload.Phase phase = RoomStatePayload.Phase.WAITING;
+        private int questionIndex = -1;
+        private long deadline;
+        private final Map<String, Integer> points = new LinkedHashMap<>(); // every player seen since the session began
+        private final Set<String> ready = new LinkedHashSet<>();
+
+        RoomState(String roomName) {
+            this.roomName = roomName;
+        }
+
+        public String getRoomName() {
+            return roomName;
+        }
+
+        public int getRound() {
+            return round;
+        }
+
+        public RoomStatePayload.Phase getPhase() {
+            return phase;
+        }
+
+        public Map<String, Integer> getPoints() {
+            return points;
+        }
+
+        public Set<String> getReady() {
+            return ready;
+        }
+    }
+
+    private final Path directory;
+    private final Map<String, RoomState> rooms = new HashMap<>(); // owned by the flush thread once it runs
+    private ByteBuffer pending = ByteBuffer.allocate(64 * 1024);
+    private int pendingRecords;
+    private FileChannel channel;
+    private int segment; // number of the segment being written
+    private int recordsSinceCheckpoint;
+    private final Thread flusher;
+    private volatile boolean closed;
+
+    private RoomJournal(Path directory) {
+        this.directory = directory;
+        this.flusher = new Thread(this::flushLoop, "room-journal-flush");
+        flusher.setDaemon(true);
+    }
+
+    // Method to open the journal in `directory`, replaying the checkpoint and the journal tail first
+    public static RoomJournal open(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        RoomJournal journal = new RoomJournal(directory);
+        long start = System.nanoTime();
+        int records = journal.recover();
+        Log.info(Log.Category.SERVER, "Room journal: {} rooms recovered from the checkpoint and {} records in {} ms",
+                journal.rooms.size(), records, (System.nanoTime() - start) / 1_000_000);
+        journal.flusher.start();
+        return journal;
+    }
+
+    // Method to get the rooms recovered on open; call before any room journals a transition
+    public List<RoomState> getRecoveredRooms() {
+        return new ArrayList<>(rooms.values());
+    }
+
+    public void ready(String roomName, String player) {
+        append(READY, roomName, player, 0, 0, 0);
+    }
+
+    public void countdown(String roomName) {
+        append(COUNTDOWN, roomName, null, 0, 0, 0);
+    }
+
+    public void question(String roomName, int round, int questionIndex, long deadline) {
+        append(QUESTION, roomName, null, round, questionIndex, deadline);
+    }
+
+    // `points` is the player's total after the answer, so replaying a record twice changes nothing
+    public void answer(String roomName, String player, int points) {
+        append(ANSWER, roomName, player, points, 0, 0);
+    }
+
+    public void roundEnd(String roomName, int round) {
+        append(ROUND_END, roomName, null, round, 0, 0);
+    }
+
+    public void sessionEnd(String roomName) {
+        append(SESSION_END, roomName, null, 0, 0, 0);
+    }
+
+    // The room has nothing left to restore, so checkpoints stop carrying it and a restart does not bring it back
+    public void roomClosed(String roomName) {
+        append(ROOM_CLOSED, roomName, null, 0, 0, 0);
+    }
+
+    // Method to flush what is pending, checkpoint and stop the flush thread
+    public void close() {
+        closed = true; // the flush thread stops within FLUSH_MILLIS; interrupting it could close the channel mid-write
+        try {
+            flusher.join();
+            flush();
+            checkpoint();
+            channel.close();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            Log.error(Log.Category.SERVER, "Error closing the room journal: {}", e.getMessage());
+        }
+    }
+
+    // Encode on the caller's thread, then copy into the pending buffer
+    private void append(byte type, String roomName, String player, int first, int second, long third) {
+        byte[] room = roomName.getBytes(StandardCharsets.UTF_8);
+        byte[] name = player == null ? null : player.getBytes(StandardCharsets.UTF_8);
+        int bodyLength = 1 + 2 + room.length;
+        switch (type) {
+            case READY:
+                bodyLength += 2 + name.length;
+                break;
+            case QUESTION:
+                bodyLength += 4 + 4 + 8;
+                break;
+            case ANSWER:
+                bodyLength += 2 + name.length + 4;
+                break;
+            case ROUND_END:
+                bodyLength += 4;
+                break;
+            default:
+                break;
+        }
+        ByteBuffer record = ByteBuffer.allocate(HEADER_SIZE + bodyLength);
+        record.position(HEADER_SIZE);
+        record.put(type);
+        record.putShort((short) room.length).put(room);
+        switch (type) {
+            case READY:
+                record.putShort((short) name.length).put(name);
+                break;
+            case QUESTION:
+                record.putInt(first).putInt(second).putLong(third);
+                break;
+            case ANSWER:
+                record.putShort((short) name.length).put(name).putInt(first);
+                break;
+            case ROUND_END:
+                record.putInt(first);
+                break;
+            default:
+                break;
+        }
+        CRC32 crc = new CRC32();
+        crc.update(record.array(), HEADER_SIZE, bodyLength);
+        record.putInt(0, bodyLength);
+        record.putInt(4, (int) crc.getValue());
+        record.rewind();
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            if (pending.remaining() < record.remaining()) {
+                ByteBuffer grown = ByteBuffer.allocate(Math.max(pending.capacity() * 2, pending.position() + record.remaining()));
+                pending.flip();
+                grown.put(pending);
+                pending = grown;
+            }
+            pending.put(record);
+            pendingRecords++;
+        }
+    }
+
+    private void flushLoop() {
+        while (!closed) {
+            try {
+                Thread.sleep(FLUSH_MILLIS);
+            } catch (InterruptedException e) {
+                return;
+            }
+            try {
+                flush();
+                if (recordsSinceCheckpoint >= CHECKPOINT_RECORDS) {
+                    checkpoint();
+                }
+            } catch (IOException e) {
+                Log.error(Log.Category.SERVER, "Error writing the room journal: {}", e.getMessage());
+            }
+        }
+    }
+
+    // Write and force everything pending as one batch, then apply it to the model
+    private void flush() throws IOException {
+        ByteBuffer batch;
+        int records;
+        synchronized (this) {
+            if (pendingRecords == 0) {
+                return;
+            }
+            batch = pending;
+            records = pendingRecords;
+            pending = ByteBuffer.allocate(batch.capacity());
+            pendingRecords = 0;
+        }
+        batch.flip();
+        while (batch.hasRemaining()) {
+            channel.write(batch);
+        }
+        channel.force(false);
+        batch.rewind();
+        replay(batch);
+        recordsSinceCheckpoint += records;
+    }
+
+    // Save the model, then continue in a new segment; segments before it are no longer needed
+    private void checkpoint() throws IOException {
+        int next = segment + 1;
+        FileChannel nextChannel = openSegment(next);
+        Path temporary = directory.resolve(CHECKPOINT + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(next);
+            out.writeInt(rooms.size());
+            for (RoomState room : rooms.values()) {
+                out.writeUTF(room.roomName);
+                out.writeInt(room.round);
+                out.writeByte(room.phase.ordinal());
+                out.writeInt(room.questionIndex);
+                out.writeLong(room.deadline);
+                out.writeInt(room.points.size());
+                for (Map.Entry<String, Integer> entry : room.points.entrySet()) {
+                    out.writeUTF(entry.getKey());
+                    out.writeInt(entry.getValue());
+                    out.writeBoolean(room.ready.contains(entry.getKey()));
+                }
+            }
+        }
+        try (FileChannel file = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+            file.force(true);
+        }
+        Files.move(temporary, directory.resolve(CHECKPOINT), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        if (channel != null) {
+            channel.close();
+        }
+        channel = nextChannel;
+        for (int old : listSegments()) {
+            if (old < next) {
+                Files.deleteIfExists(segmentPath(old));
+            }
+        }
+        segment = next;
+        recordsSinceCheckpoint = 0;
+    }
+
+    // Load the checkpoint and replay the segments after it; returns how many records were replayed
+    private int recover() throws IOException {
+        int firstSegment = 0;
+        Path checkpoint = directory.resolve(CHECKPOINT);
+        if (Files.exists(checkpoint)) {
+            firstSegment = readCheckpoint(checkpoint);
+        }
+        int records = 0;
+        int last = firstSegment - 1;
+        for (int number : listSegments()) {
+            if (number < firstSegment) {
+                continue;
+            }
+            records += replay(ByteBuffer.wrap(Files.readAllBytes(segmentPath(number))));
+            last = number;
+        }
+        // Start a fresh segment after whatever was there, a torn tail is then never appended to
+        segment = last;
+        checkpoint();
+        return records;
+    }
+
+    private int readCheckpoint(Path checkpoint) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(checkpoint)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("Not a room journal checkpoint");
+            }
+            int firstSegment = in.readInt();
+            int roomCount = in.readInt();
+            RoomStatePayload.Phase[] phases = RoomStatePayload.Phase.values();
+            for (int i = 0; i < roomCount; i++) {
+                RoomState room = new RoomState(in.readUTF());
+                room.round = in.readInt();
+                room.phase = phases[in.readByte()];
+                room.questionIndex = in.readInt();
+                room.deadline = in.readLong();
+                int players = in.readInt();
+                for (int p = 0; p < players; p++) {
+                    String name = in.readUTF();
+                    room.points.put(name, in.readInt());
+                    if (in.readBoolean()) {
+                        room.ready.add(name);
+                    }
+                }
+                rooms.put(room.roomName, room);
+            }
+            return firstSegment;
+        }
+    }
+
+    // Apply every intact record in `buffer` to the model; returns how many were applied
+    private int replay(ByteBuffer buffer) {
+        int applied = 0;
+        CRC32 crc = new CRC32();
+        while (buffer.remaining() >= HEADER_SIZE) {
+            int start = buffer.position();
+            int bodyLength = buffer.getInt(start);
+            if (bodyLength <= 0 || bodyLength > buffer.remaining() - HEADER_SIZE) {
+                break;
+            }
+            ByteBuffer body = buffer.duplicate();
+            body.position(start + HEADER_SIZE).limit(start + HEADER_SIZE + bodyLength);
+            crc.reset();
+            crc.update(body.duplicate());
+            if ((int) crc.getValue() != buffer.getInt(start + 4)) {
+                break;
+            }
+            apply(body);
+            applied++;
+            buffer.position(start + HEADER_SIZE + bodyLength);
+        }
+        return applied;
+    }
+
+    private void apply(ByteBuffer body) {
+        byte type = body.get();
+        String roomName = readString(body);
+        if (type == ROOM_CLOSED) {
+            rooms.remove(roomName);
+            return;
+        }
+        RoomState room = rooms.computeIfAbsent(roomName, RoomState::new);
+        switch (type) {
+            case READY:
+                String readyPlayer = readString(body);
+                room.ready.add(readyPlayer);
+                room.points.putIfAbsent(readyPlayer, 0);
+                break;
+            case COUNTDOWN:
+                room.phase = RoomStatePayload.Phase.STARTING;
+                break;
+            case QUESTION:
+                room.phase = RoomStatePayload.Phase.QUESTION;
+                room.round = body.getInt();
+                room.questionIndex = body.getInt();
+                room.deadline = body.getLong();
+                break;
+            case ANSWER:
+                room.points.put(readString(body), body.getInt());
+                break;
+            case ROUND_END:
+                room.phase = RoomStatePayload.Phase.STARTING;
+                room.round = body.getInt();
+                room.questionIndex = -1;
+                break;
+            case SESSION_END:
+                // Mirrors GameRoom.shiftToReadyPhase and resetGame
+                room.phase = RoomStatePayload.Phase.WAITING;
+                room.round = 0;
+                room.questionIndex = -1;
+                room.points.clear();
+                room.ready.clear();
+                break;
+            default:
+                break;
+        }
+    }
+
+    private List<Integer> listSegments() throws IOException {
+        List<Integer> numbers = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.startsWith(PREFIX) && name.endsWith(SUFFIX))
+                    .forEach(name -> numbers.add(Integer.parseInt(name.substring(PREFIX.length(), name.length() - SUFFIX.length()))));
+        }
+        numbers.sort(null);
+        return numbers;
+    }
+
+    private Path segmentPath(int number) {
+        return directory.resolve(String.format("%s%06d%s", PREFIX, number, SUFFIX));
+    }
+
+    private FileChannel openSegment(int number) throws IOException {
+        return FileChannel.open(segmentPath(number), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getShort() & 0xFFFF];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
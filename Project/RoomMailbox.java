@@ -0,0 +1,84 @@
+package Project;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A room's mailbox. Connection threads, event loops and timers post tasks here instead of
+ * touching room state themselves; the tasks run one at a time, in order, on a worker pool
+ * shared by every room. A room is therefore single-threaded without any locks, while
+ * different rooms run on different cores.
+ */
+public class RoomMailbox implements Executor {
+    private static final int BATCH = 64; // tasks run before giving other rooms a turn on the worker
+    private static final ExecutorService WORKERS = createWorkers();
+
+    private final String name;
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+
+    // Constructor
+    public RoomMailbox(String name) {
+        this.name = name;
+    }
+
+    private static ExecutorService createWorkers() {
+        AtomicInteger count = new AtomicInteger();
+        return Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), task -> {
+            Thread thread = new Thread(task, "room-worker-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // Method to post a task; it runs after every task posted before it. A task posted while a
+    // payload is dispatched is timed from here to its completion under that payload's type
+    @Override
+    public void execute(Runnable task) {
+        PayloadType type = Metrics.getDispatching();
+        if (type != null) {
+            long posted = System.nanoTime();
+            Runnable payloadTask = task;
+            task = () -> {
+                try {
+                    payloadTask.run();
+                } finally {
+                    Metrics.recordRoomTask(type, System.nanoTime() - posted);
+                }
+            };
+        }
+        tasks.add(task);
+        if (scheduled.compareAndSet(false, true)) {
+            WORKERS.execute(this::drain);
+        }
+    }
+
+    // Getter for the number of tasks waiting in the mailbox
+    public int size() {
+        return tasks.size();
+    }
+
+    private void drain() {
+        Runnable task;
+        int ran = 0;
+        while (ran < BATCH && (task = tasks.poll()) != null) {
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                Log.error(Log.Category.ROOM, "Error in room {}: {}", name, e);
+                e.printStackTrace();
+            }
+            ran++;
+        }
+        scheduled.set(false);
+        // A task may have arrived after the last poll, or the batch ran out; either way go again
+        if (!tasks.isEmpty() && scheduled.compareAndSet(false, true)) {
+            WORKERS.execute(this::drain);
+        }
+    }
+}
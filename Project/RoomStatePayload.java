@@ -0,0 +1,95 @@
+package Project;
+
+import java.util.Arrays;
+
+/**
+ * Everything a player joining a room needs, in one message: the phase, the open question
+ * with its deadline, the top of the scoreboard and who is ready, with the member and ready
+ * counts. In the Lobby the board and ready names are left empty. The version counts state
+ * changes in the room, so a client can tell which of two snapshots is newer.
+ */
+public class RoomStatePayload extends Payload {
+
+    public enum Phase {
+        WAITING, // players are getting ready
+        STARTING, // the countdown is running or the game is between questions
+        QUESTION // a question is open for answers
+    }
+
+    private long version;
+    private Phase phase;
+    private String question; // null unless a question is open
+    private String[] answerOptions;
+    private long deadline; // server clock time the open question closes
+    private long timeRemaining; // for clients whose clock is not synced
+    private ScoreboardPayload scoreboard; // a full scoreboard, cut to the top rows in large rooms
+    private String[] readyNames; // cut like the scoreboard
+    private int memberCount;
+    private int readyCount;
+
+    public RoomStatePayload(String clientId, String message, PayloadType type, long version, Phase phase,
+            String question, String[] answerOptions, long deadline, long timeRemaining,
+            ScoreboardPayload scoreboard, String[] readyNames, int memberCount, int readyCount) {
+        super(clientId, message, type);
+        this.version = version;
+        this.phase = phase;
+        this.question = question;
+        this.answerOptions = answerOptions;
+        this.deadline = deadline;
+        this.timeRemaining = timeRemaining;
+        this.scoreboard = scoreboard;
+        this.readyNames = readyNames;
+        this.memberCount = memberCount;
+        this.readyCount = readyCount;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public Phase getPhase() {
+        return phase;
+    }
+
+    public String getQuestion() {
+        return question;
+    }
+
+    public String[] getAnswerOptions() {
+        return answerOptions;
+    }
+
+    public long getDeadline() {
+        return deadline;
+    }
+
+    public long getTimeRemaining() {
+        return timeRemaining;
+    }
+
+    public ScoreboardPayload getScoreboard() {
+        return scoreboard;
+    }
+
+    public String[] getReadyNames() {
+        return readyNames;
+    }
+
+    public int getMemberCount() {
+        return memberCount;
+    }
+
+    public int getReadyCount() {
+        return readyCount;
+    }
+
+    @Override
+    public String toString() {
+        return "RoomStatePayload [clientId=" + getClientId() + ", message=" + getMessage() + ", type=" + getType()
+                + ", version=" + version + ", phase=" + phase + ", question=" + question
+                + ", answerOptions=" + Arrays.toString(answerOptions) + ", deadline=" + deadline
+                + ", timeRemaining=" + timeRemaining + ", scoreboard=" + scoreboard
+                + ", readyNames=" + Arrays.toString(readyNames) + ", memberCount=" + memberCount
+                + ", readyCount=" + readyCount + "]";
+    }
+}
@@ -0,0 +1,349 @@
+package Project;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only history of final scoreboards, one record per finished session, kept in
+ * memory-mapped segment files under the data directory.
+ *
+ * record() encodes on the caller's thread and only copies the bytes into the mapping under
+ * a short lock, so a room ending its session never waits on the disk. A background thread
+ * forces the written segments every GROUP_COMMIT_MILLIS, committing every session that ended
+ * in that window with one sync; a crash of the process alone loses nothing, since the pages
+ * are already in the OS cache. An in-memory index by player name answers history and best
+ * score lookups without scanning, and is rebuilt from the segments on open.
+ *
+ * Segments are named scores-NNNNNN.log and preallocated to SEGMENT_SIZE bytes of zeros.
+ * Record layout (big-endian):
+ *   header: int bodyLength, int CRC-32 of the body
+ *   body:   long endTime, room name, int playerCount, then per player name and int points,
+ *           players in scoreboard order; strings are (short length, UTF-8 bytes)
+ * A zero length marks the end of a segment's records. On open, a record whose checksum does
+ * not match (torn by a power loss) ends the segment and the rest of it is cleared.
+ */
+public class ScoreHistory {
+    private static final String PREFIX = "scores-";
+    private static final String SUFFIX = ".log";
+    private static final int SEGMENT_SIZE = 64 << 20;
+    private static final int HEADER_SIZE = 8;
+    private static final long GROUP_COMMIT_MILLIS = 10;
+
+    /**
+     * One finished session as seen by one player
+     */
+    public static class Entry {
+        private final long endTime;
+        private final String roomName;
+        private final int points;
+        private final int rank;
+
+        Entry(long endTime, String roomName, int points, int rank) {
+            this.endTime = endTime;
+            this.roomName = roomName;
+            this.points = points;
+            this.rank = rank;
+        }
+
+        public long getEndTime() {
+            return endTime;
+        }
+
+        public String getRoomName() {
+            return roomName;
+        }
+
+        public int getPoints() {
+            return points;
+        }
+
+        // Tied players share the better rank
+        public int getRank() {
+            return rank;
+        }
+    }
+
+    /**
+     * Where one player's sessions are in the segments, oldest first, and their best score
+     */
+    private static class PlayerIndex {
+        private long[] locations = new long[4]; // segment number << 32 | record offset
+        private int count;
+        private int best;
+
+        void add(long location, int points) {
+            if (count == locations.length) {
+                locations = Arrays.copyOf(locations, count * 2);
+            }
+            locations[count++] = location;
+            best = count == 1 ? points : Math.max(best, points);
+        }
+    }
+
+    private final Path directory;
+    private final List<MappedByteBuffer> segments = new ArrayList<>();
+    private final Map<String, PlayerIndex> players = new HashMap<>();
+    private final List<MappedByteBuffer> unsynced = new ArrayList<>(); // written since the last commit
+    private MappedByteBuffer active; // the last segment, the only one written to
+    private int position; // next write offset in the active segment
+    private boolean activeUnsynced; // the active segment is in `unsynced`
+    private long sessions;
+    private final Thread committer;
+    private volatile boolean closed;
+
+    private ScoreHistory(Path directory) {
+        this.directory = directory;
+        this.committer = new Thread(this::commitLoop, "score-history-commit");
+        committer.setDaemon(true);
+    }
+
+    // Method to open the history in `directory`, creating it if needed, and index what is already there
+    public static ScoreHistory open(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        ScoreHistory history = new ScoreHistory(directory);
+        history.recover();
+        history.committer.start();
+        Log.info(Log.Category.SERVER, "Score history: {} sessions in {}", history.sessions, directory);
+        return history;
+    }
+
+    // Method to append one session's final scoreboard; names and points are in scoreboard order
+    public void record(String roomName, long endTime, String[] names, int[] points) {
+        byte[] room = roomName.getBytes(StandardCharsets.UTF_8);
+        byte[][] encodedNames = new byte[names.length][];
+        int bodyLength = 8 + 2 + room.length + 4;
+        for (int i = 0; i < names.length; i++) {
+            encodedNames[i] = names[i].getBytes(StandardCharsets.UTF_8);
+            bodyLength += 2 + encodedNames[i].length + 4;
+        }
+        if (HEADER_SIZE + bodyLength + 4 > SEGMENT_SIZE) {
+            Log.warn(Log.Category.SERVER, "Final scores of {} are too large for the score history", roomName);
+            return;
+        }
+        ByteBuffer record = ByteBuffer.allocate(HEADER_SIZE + bodyLength);
+        record.position(HEADER_SIZE);
+        record.putLong(endTime);
+        record.putShort((short) room.length).put(room);
+        record.putInt(names.length);
+        for (int i = 0; i < names.length; i++) {
+            record.putShort((short) encodedNames[i].length).put(encodedNames[i]);
+            record.putInt(points[i]);
+        }
+        CRC32 crc = new CRC32();
+        crc.update(record.array(), HEADER_SIZE, bodyLength);
+        record.putInt(0, bodyLength);
+        record.putInt(4, (int) crc.getValue());
+        record.rewind();
+
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            if (position + record.remaining() + 4 > SEGMENT_SIZE) {
+                try {
+                    roll(); // keep room for the zero length that ends the segment
+                } catch (IOException e) {
+                    Log.error(Log.Category.SERVER, "Unable to start a score history segment, final scores of {} are lost: {}",
+                            roomName, e.getMessage());
+                    return;
+                }
+            }
+            int offset = position;
+            ByteBuffer target = active.duplicate();
+            target.position(offset);
+            target.put(record);
+            position = target.position();
+            if (!activeUnsynced) {
+                unsynced.add(active);
+                activeUnsynced = true;
+            }
+            long location = ((long) (segments.size() - 1) << 32) | offset;
+            for (int i = 0; i < names.length; i++) {
+                players.computeIfAbsent(names[i], name -> new PlayerIndex()).add(location, points[i]);
+            }
+            sessions++;
+        }
+    }
+
+    // Method to get a player's best final score, -1 if they never finished a session
+    public synchronized int bestScore(String player) {
+        PlayerIndex index = players.get(player);
+        return index == null ? -1 : index.best;
+    }
+
+    // Method to get a player's last `limit` finished sessions, newest first
+    public synchronized List<Entry> history(String player, int limit) {
+        List<Entry> entries = new ArrayList<>();
+        PlayerIndex index = players.get(player);
+        if (index == null) {
+            return entries;
+        }
+        for (int i = index.count - 1; i >= 0 && entries.size() < limit; i--) {
+            long location = index.locations[i];
+            Entry entry = readEntry(segments.get((int) (location >>> 32)), (int) location, player);
+            if (entry != null) {
+                entries.add(entry);
+            }
+        }
+        return entries;
+    }
+
+    // Getter for the number of sessions in the history
+    public synchronized long getSessionCount() {
+        return sessions;
+    }
+
+    // Method to commit what is written and stop the commit thread
+    public void close() {
+        synchronized (this) {
+            closed = true;
+        }
+        committer.interrupt();
+        commit();
+    }
+
+    private void commitLoop() {
+        while (!closed) {
+            try {
+                Thread.sleep(GROUP_COMMIT_MILLIS);
+            } catch (InterruptedException e) {
+                return;
+            }
+            commit();
+        }
+    }
+
+    // Force every segment written since the last commit; writers keep appending meanwhile
+    private void commit() {
+        MappedByteBuffer[] dirty;
+        synchronized (this) {
+            if (unsynced.isEmpty()) {
+                return;
+            }
+            dirty = unsynced.toArray(new MappedByteBuffer[0]);
+            unsynced.clear();
+            activeUnsynced = false;
+        }
+        for (MappedByteBuffer segment : dirty) {
+            segment.force();
+        }
+    }
+
+    // Start a new segment, the full one is left for the next commit
+    private void roll() throws IOException {
+        active = map(segments.size());
+        segments.add(active);
+        position = 0;
+        activeUnsynced = false;
+    }
+
+    private MappedByteBuffer map(int number) throws IOException {
+        Path file = directory.resolve(String.format("%s%06d%s", PREFIX, number, SUFFIX));
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, SEGMENT_SIZE); // grows a new file to full size
+        }
+    }
+
+    // Map the existing segments in order and index their records; the last one stays open for appends
+    private void recover() throws IOException {
+        int count;
+        try (Stream<Path> files = Files.list(directory)) {
+            count = (int) files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.startsWith(PREFIX) && name.endsWith(SUFFIX)).count();
+        }
+        for (int number = 0; number < count; number++) {
+            MappedByteBuffer segment = map(number);
+            segments.add(segment);
+            position = scan(segment, number);
+        }
+        if (segments.isEmpty()) {
+            roll();
+        }
+        active = segments.get(segments.size() - 1);
+        if (position + 4 <= SEGMENT_SIZE && active.getInt(position) != 0) {
+            // A torn record; clear it and anything after it so later appends end the segment cleanly
+            for (int i = position; i < SEGMENT_SIZE; i++) {
+                active.put(i, (byte) 0);
+            }
+            active.force();
+            Log.warn(Log.Category.SERVER, "Score history: dropped a damaged record at the end of segment {}", segments.size() - 1);
+        }
+    }
+
+    // Index every intact record in a segment; returns the offset after the last one
+    private int scan(MappedByteBuffer segment, int number) {
+        int offset = 0;
+        CRC32 crc = new CRC32();
+        while (offset + HEADER_SIZE <= SEGMENT_SIZE) {
+            int bodyLength = segment.getInt(offset);
+            if (bodyLength <= 0 || offset + HEADER_SIZE + bodyLength > SEGMENT_SIZE) {
+                break;
+            }
+            ByteBuffer body = segment.duplicate();
+            body.position(offset + HEADER_SIZE).limit(offset + HEADER_SIZE + bodyLength);
+            crc.reset();
+            crc.update(body.duplicate());
+            if ((int) crc.getValue() != segment.getInt(offset + 4)) {
+                break;
+            }
+            long location = ((long) number << 32) | offset;
+            body.getLong(); // end time
+            skipString(body);
+            int playerCount = body.getInt();
+            for (int i = 0; i < playerCount; i++) {
+                String name = readString(body);
+                players.computeIfAbsent(name, key -> new PlayerIndex()).add(location, body.getInt());
+            }
+            sessions++;
+            offset += HEADER_SIZE + bodyLength;
+        }
+        return offset;
+    }
+
+    private Entry readEntry(MappedByteBuffer segment, int offset, String player) {
+        ByteBuffer body = segment.duplicate();
+        body.position(offset + HEADER_SIZE);
+        long endTime = body.getLong();
+        String roomName = readString(body);
+        int playerCount = body.getInt();
+        int rank = 0;
+        int previous = 0;
+        for (int i = 0; i < playerCount; i++) {
+            String name = readString(body);
+            int points = body.getInt();
+            if (i == 0 || points != previous) {
+                rank = i + 1;
+                previous = points;
+            }
+            if (name.equals(player)) {
+                return new Entry(endTime, roomName, points, rank);
+            }
+        }
+        return null;
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getShort() & 0xFFFF];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void skipString(ByteBuffer buffer) {
+        int length = buffer.getShort() & 0xFFFF;
+        buffer.position(buffer.position() + length);
+    }
+}
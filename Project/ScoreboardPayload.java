@@ -0,0 +1,58 @@
+package Project;
+
+import java.util.Arrays;
+
+/**
+ * Every player's score and rank in one message. A full scoreboard replaces whatever the
+ * client had; a delta only lists the players whose score or rank changed since the previous
+ * scoreboard, plus the names of players who left, so unchanged scores cost nothing.
+ */
+public class ScoreboardPayload extends Payload {
+    private boolean delta;
+    private String[] names;
+    private int[] scores;
+    private int[] ranks; // 1 for the leader, tied scores share a rank
+    private String[] removed;
+
+    public ScoreboardPayload(String clientId, String message, PayloadType type, boolean delta,
+            String[] names, int[] scores, int[] ranks, String[] removed) {
+        super(clientId, message, type);
+        this.delta = delta;
+        this.names = names;
+        this.scores = scores;
+        this.ranks = ranks;
+        this.removed = removed;
+    }
+
+    public boolean isDelta() {
+        return delta;
+    }
+
+    public String[] getNames() {
+        return names;
+    }
+
+    public int[] getScores() {
+        return scores;
+    }
+
+    public int[] getRanks() {
+        return ranks;
+    }
+
+    public String[] getRemoved() {
+        return removed;
+    }
+
+    // Getter for the number of entries
+    public int size() {
+        return names.length;
+    }
+
+    @Override
+    public String toString() {
+        return "ScoreboardPayload [clientId=" + getClientId() + ", message=" + getMessage() + ", type=" + getType()
+                + ", delta=" + delta + ", names=" + Arrays.toString(names) + ", scores=" + Arrays.toString(scores)
+                + ", ranks=" + Arrays.toString(ranks) + ", removed=" + Arrays.toString(removed) + "]";
+    }
+}
@@ -0,0 +1,143 @@
+package Project;
+
+import javax.swing.table.AbstractTableModel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Table model for the scoreboard, sorted by points (highest first) then name. Each snapshot
+ * of every player's points is diffed against the rows so that only players whose score
+ * changed are updated or moved. The GameUI's UiEventQueue applies only the newest snapshot
+ * of each display frame, on the EDT.
+ */
+public class ScoreboardTableModel extends AbstractTableModel {
+    private static final String[] COLUMNS = { "#", "Player", "Points" };
+    private static final Comparator<Row> ORDER = Comparator.comparingInt((Row row) -> -row.points)
+            .thenComparing(row -> row.name);
+
+    private static class Row {
+        private final String name;
+        private int points;
+
+        Row(String name, int points) {
+            this.name = name;
+            this.points = points;
+        }
+    }
+
+    private final List<Row> rows = new ArrayList<>();
+    private final Map<String, Row> byName = new HashMap<>();
+
+    @Override
+    public int getRowCount() {
+        return rows.size();
+    }
+
+    @Override
+    public int getColumnCount() {
+        return COLUMNS.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return COLUMNS[column];
+    }
+
+    @Override
+    public Class<?> getColumnClass(int column) {
+        return column == 1 ? String.class : Integer.class;
+    }
+
+    @Override
+    public Object getValueAt(int rowIndex, int column) {
+        Row row = rows.get(rowIndex);
+        switch (column) {
+            case 0:
+                return rankAt(rowIndex);
+            case 1:
+                return row.name;
+            default:
+                return row.points;
+        }
+    }
+
+    // Tied players share the better rank
+    private int rankAt(int index) {
+        int points = rows.get(index).points;
+        while (index > 0 && rows.get(index - 1).points == points) {
+            index--;
+        }
+        return index + 1;
+    }
+
+    // Method to bring the rows in line with a snapshot, touching only the players that changed
+    public void apply(Map<String, Integer> snapshot) {
+        List<String> removed = new ArrayList<>();
+        for (String name : byName.keySet()) {
+            if (!snapshot.containsKey(name)) {
+                removed.add(name);
+            }
+        }
+        List<Map.Entry<String, Integer>> changed = new ArrayList<>();
+        for (Map.Entry<String, Integer> entry : snapshot.entrySet()) {
+            Row row = byName.get(entry.getKey());
+            if (row == null || row.points != entry.getValue()) {
+                changed.add(entry);
+            }
+        }
+        if (removed.size() + changed.size() > Math.max(32, rows.size() / 4)) {
+            rebuild(snapshot); // a new game or a full board, sorting once beats moving rows one by one
+            return;
+        }
+        for (String name : removed) {
+            Row row = byName.remove(name);
+            int index = indexOf(row);
+            rows.remove(index);
+            fireTableRowsDeleted(index, index);
+            if (index < rows.size()) {
+                fireTableRowsUpdated(index, rows.size() - 1); // everyone below moves up a rank
+            }
+        }
+        for (Map.Entry<String, Integer> entry : changed) {
+            Row row = byName.get(entry.getKey());
+            int from = -1;
+            if (row == null) {
+                row = new Row(entry.getKey(), entry.getValue());
+                byName.put(row.name, row);
+            } else {
+                from = indexOf(row);
+                rows.remove(from);
+                row.points = entry.getValue();
+            }
+            int to = -Collections.binarySearch(rows, row, ORDER) - 1;
+            rows.add(to, row);
+            if (from < 0) {
+                fireTableRowsInserted(to, to);
+            }
+            // Rows between the old and new place moved, and a broken or new tie changes the ranks after it;
+            // the table only repaints the part of this range that is on screen
+            int first = from < 0 ? to : Math.min(from, to);
+            fireTableRowsUpdated(first, rows.size() - 1);
+        }
+    }
+
+    private void rebuild(Map<String, Integer> snapshot) {
+        rows.clear();
+        byName.clear();
+        for (Map.Entry<String, Integer> entry : snapshot.entrySet()) {
+            Row row = new Row(entry.getKey(), entry.getValue());
+            rows.add(row);
+            byName.put(row.name, row);
+        }
+        rows.sort(ORDER);
+        fireTableDataChanged();
+    }
+
+    private int indexOf(Row row) {
+        return Collections.binarySearch(rows, row, ORDER);
+    }
+}
@@ -3,39 +3,76 @@ package Project;
 import java.io.IOException;
 import java.net.ServerSocket;
 import java.net.Socket;
+import java.nio.file.Paths;
+import java.security.SecureRandom;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 public class Server {
+    /**
+     * Told about clients as they connect, move between rooms and leave, on the thread that made the change
+     */
+    public interface ClientListener {
+        void clientConnected(ClientData client, String roomName);
+
+        void clientRoomChanged(ClientData client, String roomName);
+
+        void clientDisconnected(ClientData client);
+    }
+
     private int port;
     private List<ServerThread> serverThreads; // List of all active client threads
     private Map<String, GameRoom> gameRooms; // Map to store all game rooms by room name
     private GameRoom lobby;
     private long startTime; // Server start time
+    private boolean useNio; // Use the selector-based server instead of a thread per connection
+    private int eventLoops = Runtime.getRuntime().availableProcessors(); // Event loop threads in NIO mode
+    private boolean useVirtualThreads; // Run blocking connection handlers on virtual threads
+    private int maxWireVersion = Frames.CURRENT_VERSION; // Highest wire version offered to clients
+    private int queueCapacity = OutboundQueue.DEFAULT_CAPACITY; // Outbound payloads buffered per client
+    private EnumSet<OutboundQueue.OverflowPolicy> overflowPolicies = OutboundQueue.defaultPolicies();
+    private NioServer nioServer;
+    private long resumeGraceMs = 30000; // How long a dropped player's seat is held for a reconnect, 0 to disable
+    private final Map<String, ClientData> sessions = new ConcurrentHashMap<>(); // Resumable sessions by token
+    private final SecureRandom tokens = new SecureRandom();
+    private final List<ClientListener> clientListeners = new CopyOnWriteArrayList<>();
 
     // Constructor
     public Server(int port) {
         this.port = port;
         this.serverThreads = Collections.synchronizedList(new ArrayList<>()); // Thread-safe list
         this.gameRooms = new ConcurrentHashMap<>(); // Concurrent map to store rooms
-        this.lobby = new GameRoom("Lobby");
-        gameRooms.put("Lobby", lobby); // Initialize the Lobby
+        this.lobby = new GameRoom(GameRoom.LOBBY);
+        gameRooms.put(GameRoom.LOBBY, lobby); // Initialize the Lobby
         this.startTime = System.currentTimeMillis(); // Record the start time
     }
 
-    // Method to start the server
+    // Method to start the server in the configured mode
     public void start() {
+        if (useNio) {
+            nioServer = new NioServer(this, port, eventLoops);
+            nioServer.start();
+        } else {
+            startBlocking();
+        }
+    }
+
+    // Method to start the server with one ServerThread per connection
+    private void startBlocking() {
         try (ServerSocket serverSocket = new ServerSocket(port)) {
             System.out.println("Server started on port: " + port);
             while (true) {
                 Socket clientSocket = serverSocket.accept();
-                System.out.println("New client connected: " + clientSocket.getInetAddress());
+                Log.debug(Log.Category.NET, "New client connected: {}", clientSocket.getInetAddress());
                 ServerThread serverThread = new ServerThread(clientSocket, this);
                 serverThreads.add(serverThread);
-                serverThread.start();
+                // ServerThread is also a Runnable, so it can run on a virtual thread instead of itself
+                Threads.start("client-" + clientSocket.getPort(), serverThread, useVirtualThreads);
             }
         } catch (IOException e) {
             System.err.println("Error starting server: " + e.getMessage());
@@ -46,15 +83,27 @@ public class Server {
     public boolean createRoom(String roomName, ServerThread creatorThread) {
         if (!gameRooms.containsKey(roomName)) {
             GameRoom newRoom = new GameRoom(roomName);
+            newRoom.setOwner(creatorThread.getClientData()); // the creator picks the categories
             gameRooms.put(roomName, newRoom);
-            System.out.println("Room created: " + roomName);
+            Log.info(Log.Category.ROOM, "Room created: {}", roomName);
             return true;
         } else {
-            System.out.println("Room with name " + roomName + " already exists.");
+            Log.debug(Log.Category.ROOM, "Room with name {} already exists.", roomName);
             return false;
         }
     }
 
+    // Method to recreate the rooms found in the journal, with the points their players had
+    public void restoreRooms(List<RoomJournal.RoomState> states) {
+        for (RoomJournal.RoomState state : states) {
+            GameRoom room = gameRooms.computeIfAbsent(state.getRoomName(), GameRoom::new);
+            room.restore(state);
+        }
+        if (!states.isEmpty()) {
+            Log.info(Log.Category.ROOM, "Restored {} rooms from the journal", states.size());
+        }
+    }
+
     // Method to get a room by name
     public GameRoom getRoom(String roomName) {
         return gameRooms.get(roomName);
@@ -62,32 +111,93 @@ public class Server {
 
     // Method to broadcast messages to all clients in the same room
     public void broadcastToRoom(GameRoom room, Payload payload) {
+        // The room keeps its own member list, so this is O(room size) and takes no server-wide lock
+        room.broadcast(payload);
+    }
+
+    // Method to copy the connected threads so callers can do I/O without holding the list lock
+    private ServerThread[] snapshotServerThreads() {
         synchronized (serverThreads) {
-            for (ServerThread serverThread : serverThreads) {
-                if (serverThread.getCurrentRoom() == room) {
-                    serverThread.sendPayload(payload);
-                }
-            }
+            return serverThreads.toArray(new ServerThread[0]);
+        }
+    }
+
+    // Method to track a connection accepted by the NIO server
+    public void addServerThread(ServerThread serverThread) {
+        serverThreads.add(serverThread);
+    }
+
+    // Method to give a new client a resume token and a replay buffer, returns null if sessions are off
+    public String openSession(ClientData clientData) {
+        if (resumeGraceMs <= 0) {
+            return null;
+        }
+        byte[] bytes = new byte[16];
+        tokens.nextBytes(bytes);
+        StringBuilder token = new StringBuilder(32);
+        for (byte b : bytes) {
+            token.append(String.format("%02x", b));
         }
+        clientData.setResumeToken(token.toString());
+        clientData.setReplayBuffer(new ReplayBuffer(ReplayBuffer.DEFAULT_CAPACITY));
+        sessions.put(clientData.getResumeToken(), clientData);
+        return clientData.getResumeToken();
     }
 
-    // Method to remove a client from the server
+    // Method to find a resumable session by its token
+    public ClientData findSession(String token) {
+        return token == null ? null : sessions.get(token);
+    }
+
+    // Method to remove a client from the server, or hold its seat for a while if its connection dropped
     public void removeClient(ServerThread serverThread) {
         synchronized (serverThreads) {
             serverThreads.remove(serverThread);
         }
+        ClientData clientData = serverThread.getClientData();
+        if (clientData == null) {
+            Log.debug(Log.Category.NET, "Client disconnected before connecting");
+            return;
+        }
+        if (clientData.getServerThread() != serverThread) {
+            return; // The session already moved to a new connection
+        }
+        if (clientData.getResumeToken() != null && !serverThread.getOutboundQueue().isClosed()) {
+            // Payloads keep queueing for the player until they reconnect or the grace period ends
+            Log.info(Log.Category.NET, "Client connection lost: {}, holding the session for {} ms", clientData.getName(), resumeGraceMs);
+            GameScheduler.schedule(() -> {
+                if (clientData.getServerThread() == serverThread) {
+                    Log.info(Log.Category.NET, "Session expired: {}", clientData.getName());
+                    closeSession(serverThread, clientData);
+                }
+            }, resumeGraceMs);
+            return;
+        }
+        closeSession(serverThread, clientData);
+    }
+
+    // Method to take a client out of its room for good
+    private void closeSession(ServerThread serverThread, ClientData clientData) {
+        if (clientData.getResumeToken() != null && !sessions.remove(clientData.getResumeToken(), clientData)) {
+            return; // Already ended
+        }
+        serverThread.getOutboundQueue().close();
         GameRoom currentRoom = serverThread.getCurrentRoom();
         if (currentRoom != null) {
-            currentRoom.removeClient(serverThread.getClientData());
+            currentRoom.removeClient(clientData);
         }
-        System.out.println("Client disconnected: " + serverThread.getClientData().getName());
+        for (ClientListener listener : clientListeners) {
+            listener.clientDisconnected(clientData);
+        }
+        Log.info(Log.Category.NET, "Client disconnected: {}", clientData.getName());
     }
 
     public void stop() {
-        synchronized (serverThreads) {
-            for (ServerThread serverThread : serverThreads) {
-                serverThread.disconnect();
-            }
+        if (nioServer != null) {
+            nioServer.stop();
+        }
+        for (ServerThread serverThread : snapshotServerThreads()) {
+            serverThread.disconnect();
         }
     }
 
@@ -96,11 +206,100 @@ public class Server {
         return lobby;
     }
 
+    // Method to subscribe to client connects, room changes and disconnects
+    public void addClientListener(ClientListener listener) {
+        clientListeners.add(listener);
+    }
+
+    // Method to announce a client that finished CONNECT
+    void publishConnected(ClientData clientData, GameRoom room) {
+        for (ClientListener listener : clientListeners) {
+            listener.clientConnected(clientData, room.getRoomName());
+        }
+    }
+
+    // Method to announce a client that moved to another room
+    void publishRoomChanged(ClientData clientData, GameRoom room) {
+        for (ClientListener listener : clientListeners) {
+            listener.clientRoomChanged(clientData, room.getRoomName());
+        }
+    }
+
+    // Getter for the number of rooms, including the lobby
+    public int getRoomCount() {
+        return gameRooms.size();
+    }
+
+    // Getter for the number of resumable sessions, including the ones held after a dropped connection
+    public int getSessionCount() {
+        return sessions.size();
+    }
+
     // Getter for server threads
     public List<ServerThread> getServerThreads() {
         return serverThreads;
     }
 
+    // Setter for the NIO mode
+    public void setUseNio(boolean useNio) {
+        this.useNio = useNio;
+    }
+
+    // Setter for running blocking connection handlers on virtual threads
+    public void setUseVirtualThreads(boolean useVirtualThreads) {
+        this.useVirtualThreads = useVirtualThreads;
+    }
+
+    // Getter for running blocking connection handlers on virtual threads
+    public boolean isUseVirtualThreads() {
+        return useVirtualThreads;
+    }
+
+    // Getter for the outbound queue capacity per client
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    // Setter for the outbound queue capacity per client
+    public void setQueueCapacity(int queueCapacity) {
+        this.queueCapacity = queueCapacity;
+    }
+
+    // Getter for what happens when a client's outbound queue is full
+    public EnumSet<OutboundQueue.OverflowPolicy> getOverflowPolicies() {
+        return overflowPolicies;
+    }
+
+    // Setter for what happens when a client's outbound queue is full
+    public void setOverflowPolicies(EnumSet<OutboundQueue.OverflowPolicy> overflowPolicies) {
+        this.overflowPolicies = overflowPolicies;
+    }
+
+    // Getter for how long a dropped player's session is held
+    public long getResumeGraceMs() {
+        return resumeGraceMs;
+    }
+
+    // Setter for how long a dropped player's session is held, 0 turns resumable sessions off
+    public void setResumeGraceMs(long resumeGraceMs) {
+        this.resumeGraceMs = resumeGraceMs;
+    }
+
+    // Setter for the number of NIO event loops
+    public void setEventLoops(int eventLoops) {
+        this.eventLoops = eventLoops;
+    }
+
+    // Getter for the highest wire version this server will agree to
+    public int getMaxWireVersion() {
+        return maxWireVersion;
+    }
+
+    // Setter for the highest wire version, lets the server force the serialization format
+    public void setMaxWireVersion(int maxWireVersion) {
+        this.maxWireVersion = maxWireVersion;
+    }
+
     // Getter for start time
     public long getStartTime() {
         return startTime;
@@ -110,10 +309,79 @@ public class Server {
     public static void main(String[] args) {
         int port = 12345; // Default port
         boolean useUI = true; // Default to UI mode
+        boolean useNio = false; // Default to one thread per connection
+        boolean useVirtualThreads = false;
+        int eventLoops = Runtime.getRuntime().availableProcessors();
+        int wireVersion = Frames.CURRENT_VERSION;
+        int queueCapacity = OutboundQueue.DEFAULT_CAPACITY;
+        EnumSet<OutboundQueue.OverflowPolicy> overflowPolicies = OutboundQueue.defaultPolicies();
+        long resumeGraceMs = 30000;
+        int metricsPort = 0; // 0 leaves the metrics endpoint off
+        String dataDir = "data"; // Score history, relative to the working directory
         if (args.length > 0) {
             for (String arg : args) {
                 if (arg.equalsIgnoreCase("--headless")) {
                     useUI = false;
+                } else if (arg.equalsIgnoreCase("--local-timers")) {
+                    GameRoom.setTimeTicks(false); // clients count down to the question deadline themselves
+                } else if (arg.startsWith("--questions=")) {
+                    QuestionBank.setDefaultPath(arg.substring("--questions=".length()));
+                } else if (arg.equalsIgnoreCase("--nio")) {
+                    useNio = true;
+                } else if (arg.equalsIgnoreCase("--virtual-threads")) {
+                    useVirtualThreads = true;
+                    if (!Threads.virtualThreadsSupported()) {
+                        System.err.println("Virtual threads are not supported by this JDK. Using platform threads.");
+                    }
+                } else if (arg.startsWith("--event-loops=")) {
+                    try {
+                        eventLoops = Integer.parseInt(arg.split("=")[1]);
+                    } catch (NumberFormatException e) {
+                        System.err.println("Invalid event loop count. Using " + eventLoops);
+                    }
+                } else if (arg.startsWith("--wire-version=")) {
+                    try {
+                        int requested = Integer.parseInt(arg.split("=")[1]);
+                        wireVersion = Math.max(Frames.VERSION_SERIALIZED, Math.min(Frames.CURRENT_VERSION, requested));
+                        if (wireVersion != requested) {
+                            System.err.println("Wire versions go from " + Frames.VERSION_SERIALIZED + " to "
+                                    + Frames.CURRENT_VERSION + ". Using " + wireVersion);
+                        }
+                    } catch (NumberFormatException e) {
+                        System.err.println("Invalid wire version. Using " + wireVersion);
+                    }
+                } else if (arg.startsWith("--queue-capacity=")) {
+                    try {
+                        queueCapacity = Integer.parseInt(arg.split("=")[1]);
+                    } catch (NumberFormatException e) {
+                        System.err.println("Invalid queue capacity. Using " + queueCapacity);
+                    }
+                } else if (arg.startsWith("--overflow=")) {
+                    try {
+                        overflowPolicies = OutboundQueue.parsePolicies(arg.substring("--overflow=".length()));
+                    } catch (IllegalArgumentException e) {
+                        System.err.println(e.getMessage() + ". Using " + overflowPolicies);
+                    }
+                } else if (arg.startsWith("--resume-grace=")) {
+                    try {
+                        resumeGraceMs = Long.parseLong(arg.split("=")[1]) * 1000;
+                    } catch (NumberFormatException e) {
+                        System.err.println("Invalid resume grace period. Using " + resumeGraceMs / 1000 + " seconds");
+                    }
+                } else if (arg.startsWith("--log=")) {
+                    try {
+                        Log.configure(arg.substring("--log=".length()));
+                    } catch (IllegalArgumentException e) {
+                        System.err.println(e.getMessage() + ". Levels are debug, info, warn, error and off");
+                    }
+                } else if (arg.startsWith("--data-dir=")) {
+                    dataDir = arg.substring("--data-dir=".length());
+                } else if (arg.startsWith("--metrics-port=")) {
+                    try {
+                        metricsPort = Integer.parseInt(arg.split("=")[1]);
+                    } catch (NumberFormatException e) {
+                        System.err.println("Invalid metrics port. The metrics endpoint stays off");
+                    }
                 } else if (arg.startsWith("--port=")) {
                     try {
                         port = Integer.parseInt(arg.split("=")[1]);
@@ -124,6 +392,37 @@ public class Server {
             }
         }
         Server server = new Server(port);
+        server.setUseNio(useNio);
+        server.setEventLoops(eventLoops);
+        server.setUseVirtualThreads(useVirtualThreads);
+        server.setMaxWireVersion(wireVersion);
+        server.setQueueCapacity(queueCapacity);
+        server.setOverflowPolicies(overflowPolicies);
+        server.setResumeGraceMs(resumeGraceMs);
+        try {
+            ScoreHistory history = ScoreHistory.open(Paths.get(dataDir));
+            GameRoom.setScoreHistory(history);
+            // Commits the final scores of the last sessions instead of leaving them to the next group commit
+            Runtime.getRuntime().addShutdownHook(new Thread(history::close, "score-history-close"));
+        } catch (IOException e) {
+            System.err.println("Error opening the score history in " + dataDir + ", final scores are not kept: " + e.getMessage());
+        }
+        try {
+            RoomJournal journal = RoomJournal.open(Paths.get(dataDir));
+            server.restoreRooms(journal.getRecoveredRooms()); // before any room can journal again
+            GameRoom.setRoomJournal(journal);
+            // Flushes the records still pending and checkpoints, so the next start replays no segment
+            Runtime.getRuntime().addShutdownHook(new Thread(journal::close, "room-journal-close"));
+        } catch (IOException e) {
+            System.err.println("Error opening the room journal in " + dataDir + ", rooms are not journaled: " + e.getMessage());
+        }
+        if (metricsPort > 0) {
+            try {
+                new MetricsServer(server, metricsPort).start();
+            } catch (IOException e) {
+                System.err.println("Error starting the metrics endpoint: " + e.getMessage());
+            }
+        }
         if (useUI) {
             System.out.println("Starting server with UI...");
             ServerUI.launch(server); // Start Swing UI
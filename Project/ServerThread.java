@@ -1,30 +1,55 @@
 package Project;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.IOException;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
 import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
 
 public class ServerThread extends Thread {
     private Socket socket;
     private Server server;
-    private ObjectOutputStream out;
-    private ObjectInputStream in;
-    private ClientData clientData;
-    private GameRoom currentRoom;
+    private DataOutputStream out;
+    private DataInputStream in;
+    private NioServer.Connection connection; // Set instead of socket when driven by the NIO event loops
+    private volatile int wireVersion = Frames.CURRENT_VERSION; // Agreed in the handshake
+    private volatile ClientData clientData;
+    private volatile GameRoom currentRoom;
+    private final OutboundQueue outbound; // Drained by the writer thread, or by the event loop in NIO mode
 
     // Constructor
     public ServerThread(Socket socket, Server server) {
         this.socket = socket;
         this.server = server;
+        this.outbound = new OutboundQueue(server.getQueueCapacity(), server.getOverflowPolicies());
         try {
-            out = new ObjectOutputStream(socket.getOutputStream());
-            in = new ObjectInputStream(socket.getInputStream());
+            out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
         } catch (IOException e) {
-            System.err.println("Error initializing I/O streams: " + e.getMessage());
+            Log.error(Log.Category.NET, "Error initializing I/O streams: {}", e.getMessage());
         }
     }
 
+    // Constructor for NIO mode, the thread is never started and the event loop calls handlePayload
+    public ServerThread(Server server, NioServer.Connection connection) {
+        this.server = server;
+        this.connection = connection;
+        this.outbound = new OutboundQueue(server.getQueueCapacity(), server.getOverflowPolicies());
+    }
+
+    // Set the wire version agreed with the client, used by the NIO connection after its handshake
+    void setWireVersion(int wireVersion) {
+        this.wireVersion = wireVersion;
+    }
+
+    // Get the queue of payloads waiting to be written to this client
+    public OutboundQueue getOutboundQueue() {
+        return outbound;
+    }
+
     // Get the current room of the client
     public GameRoom getCurrentRoom() {
         return currentRoom;
@@ -39,21 +64,60 @@ public class ServerThread extends Thread {
     @Override
     public void run() {
         try {
-            Object request;
-            while ((request = in.readObject()) != null) {
-                if (request instanceof Payload) {
-                    Payload payload = (Payload) request;
-                    handlePayload(payload);
-                }
+            wireVersion = Frames.serverHello(in, out, server.getMaxWireVersion());
+            Threads.start("writer-" + socket.getPort(), this::writeLoop, server.isUseVirtualThreads());
+            while (true) {
+                Payload payload = Frames.read(in, wireVersion); // blocking, throws EOFException on disconnect
+                handlePayload(payload);
             }
-        } catch (IOException | ClassNotFoundException e) {
-            System.err.println("Client disconnected: " + e.getMessage());
-            server.removeClient(this);
+        } catch (IOException e) {
+            Log.debug(Log.Category.NET, "Client disconnected: {}", e.getMessage());
+        } catch (RuntimeException e) {
+            Log.error(Log.Category.NET, "Error handling a payload, closing the connection: {}", e.toString());
+            closeConnection();
+        } finally {
+            server.removeClient(this); // closes the outbound queue unless the session is held for a reconnect
         }
     }
 
+    // Writer loop for blocking mode, the only code that writes frames to the socket
+    private void writeLoop() {
+        try {
+            EncodedPayload next;
+            while ((next = outbound.take()) != null) {
+                do {
+                    byte[] frame = next.frame(wireVersion);
+                    out.write(frame);
+                    Metrics.recordOutbound(frame.length);
+                } while ((next = outbound.poll()) != null);
+                out.flush(); // one flush per burst instead of one per payload
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            Log.debug(Log.Category.NET, "Error sending payload to client: {}", e.getMessage());
+            closeConnection(); // the reader sees the closed socket and lets the server hold or end the session
+        }
+    }
+
+    // Method to handle a payload, timed per type for the metrics; the room tasks it posts are timed by their mailbox
+    void handlePayload(Payload payload) {
+        if (clientData == null && payload.getType() != PayloadType.CONNECT && payload.getType() != PayloadType.RESUME) {
+            Log.debug(Log.Category.NET, "Ignoring {} from a client that has not connected", payload.getType());
+            return;
+        }
+        long start = System.nanoTime();
+        Metrics.setDispatching(payload.getType());
+        try {
+            dispatch(payload);
+        } finally {
+            Metrics.setDispatching(null);
+        }
+        Metrics.recordDispatch(payload.getType(), System.nanoTime() - start);
+    }
+
     // Method to handle different types of payloads
-    private void handlePayload(Payload payload) {
+    private void dispatch(Payload payload) {
         switch (payload.getType()) {
             case CONNECT:
                 handleConnectPayload(payload);
@@ -82,27 +146,84 @@ public class ServerThread extends Thread {
             case NOTIFICATION:
                 handleNotificationPayload(payload);
                 break;
+            case SELECTED_CATEGORIES:
+                handleSelectedCategoriesPayload(payload);
+                break;
+            case RESUME:
+                if (payload instanceof ResumePayload) {
+                    handleResumePayload((ResumePayload) payload);
+                }
+                break;
             default:
-                System.err.println("Unknown payload type: " + payload.getType());
+                Log.warn(Log.Category.NET, "Unknown payload type: {}", payload.getType());
                 break;
         }
     }
 
     // Handle connect payload
     private void handleConnectPayload(Payload payload) {
-        clientData = new ClientData(payload.getClientId(), this);
+        if (clientData != null) {
+            return; // Already connected
+        }
+        ClientData newClient = new ClientData(payload.getClientId(), this);
+        String token = server.openSession(newClient);
+        outbound.setReplayBuffer(newClient.getReplayBuffer()); // before anything is sent, so the counts match the client's
+        clientData = newClient;
         currentRoom = server.getLobby();
+        if (token != null) {
+            sendPayload(new ResumePayload("Server", "Session", PayloadType.RESUME, token, 0));
+        }
+        if (payload instanceof ClockPayload) {
+            // Answer the clock sample so the client can work out its offset from the server clock
+            long clientTime = ((ClockPayload) payload).getClientTime();
+            sendPayload(new ClockPayload("Server", "Clock Sync", PayloadType.CLOCK_SYNC, clientTime, System.currentTimeMillis()));
+        }
         currentRoom.addClient(clientData);
-        System.out.println(clientData.getName() + " connected and joined the Lobby");
+        server.publishConnected(clientData, currentRoom);
+        Log.info(Log.Category.NET, "{} connected and joined the Lobby", clientData.getName());
+    }
+
+    // Handle resume payload: take over a session whose connection dropped, then resend what it missed
+    private void handleResumePayload(ResumePayload payload) {
+        ClientData session = clientData == null ? server.findSession(payload.getToken()) : null;
+        ServerThread previous = session == null ? null : session.getServerThread();
+        if (previous == null || previous == this) {
+            sendPayload(new ResumePayload("Server", "Session expired", PayloadType.RESUME, null, 0));
+            return;
+        }
+        // Once the old queue stops handing out payloads, everything it wrote is in the replay buffer
+        previous.getOutboundQueue().stopTaking();
+        List<EncodedPayload> missed = session.getReplayBuffer().since(payload.getLastSequence());
+        if (missed == null) {
+            // Too far behind to replay, the client starts a new session
+            previous.disconnect();
+            server.removeClient(previous);
+            sendPayload(new ResumePayload("Server", "Session expired", PayloadType.RESUME, null, 0));
+            return;
+        }
+        outbound.setReplayBuffer(session.getReplayBuffer());
+        clientData = session;
+        currentRoom = previous.getCurrentRoom();
+        session.setServerThread(this); // rooms send here from now on
+        previous.closeConnection(); // in case the old socket has not noticed it is dead
+        sendPayload(new ResumePayload("Server", "Resumed", PayloadType.RESUME, payload.getToken(), payload.getLastSequence()));
+        outbound.requeue(missed);
+        previous.getOutboundQueue().forwardTo(outbound); // then whatever queued up while disconnected
+        flushOutbound();
+        Log.info(Log.Category.NET, "{} resumed the session, {} payloads replayed", session.getName(), missed.size());
     }
 
     // Handle create room payload
     private void handleCreateRoomPayload(Payload payload) {
         String roomName = payload.getMessage();
+        if (roomName == null || roomName.isBlank()) {
+            sendPayload(new Payload("Server", "Room creation failed. Please enter a room name.", PayloadType.NOTIFICATION));
+            return;
+        }
         boolean roomCreated = server.createRoom(roomName, this);
         if (roomCreated) {
             joinRoom(roomName);
-            System.out.println(clientData.getName() + " created and joined the room: " + roomName);
+            Log.info(Log.Category.ROOM, "{} created and joined the room: {}", clientData.getName(), roomName);
         } else {
             sendPayload(new Payload("Server", "Room creation failed. Room already exists.", PayloadType.NOTIFICATION));
         }
@@ -111,10 +232,14 @@ public class ServerThread extends Thread {
     // Handle join room payload
     private void handleJoinRoomPayload(Payload payload) {
         String roomName = payload.getMessage();
+        if (roomName == null || roomName.isBlank()) {
+            sendPayload(new Payload("Server", "Room not found. Please try again.", PayloadType.NOTIFICATION));
+            return;
+        }
         GameRoom room = server.getRoom(roomName);
         if (room != null) {
             joinRoom(roomName);
-            System.out.println(clientData.getName() + " joined the room: " + roomName);
+            Log.debug(Log.Category.ROOM, "{} joined the room: {}", clientData.getName(), roomName);
         } else {
             sendPayload(new Payload("Server", "Room not found. Please try again.", PayloadType.NOTIFICATION));
         }
@@ -123,16 +248,20 @@ public class ServerThread extends Thread {
     // Handle join room as spectator payload
     private void handleJoinRoomAsSpectatorPayload(Payload payload) {
         String roomName = payload.getMessage();
+        if (roomName == null || roomName.isBlank()) {
+            sendPayload(new Payload("Server", "Room not found. Please try again.", PayloadType.NOTIFICATION));
+            return;
+        }
         GameRoom room = server.getRoom(roomName);
         if (room != null) {
             room.addSpectator(clientData);
-            System.out.println(clientData.getName() + " joined the room as a spectator: " + roomName);
+            Log.debug(Log.Category.ROOM, "{} joined the room as a spectator: {}", clientData.getName(), roomName);
         } else {
             sendPayload(new Payload("Server", "Room not found. Please try again.", PayloadType.NOTIFICATION));
         }
     }
     private void handleAwayStatusPayload(Payload payload) {
-        System.out.println("Away status received: " + payload.getMessage());
+        Log.debug(Log.Category.ROOM, "Away status received from {}: {}", clientData.getName(), payload.getMessage());
         boolean isAway = Boolean.parseBoolean(payload.getMessage());
         if (currentRoom != null && currentRoom instanceof GameRoom) {
             ((GameRoom) currentRoom).markClientAway(clientData, isAway);
@@ -146,6 +275,7 @@ public class ServerThread extends Thread {
         currentRoom = server.getRoom(roomName);
         if (currentRoom != null) {
             currentRoom.addClient(clientData);
+            server.publishRoomChanged(clientData, currentRoom);
         }
     }
 
@@ -159,10 +289,10 @@ public class ServerThread extends Thread {
     // Handle start game payload
     private void handleStartGamePayload(Payload payload) {
         if (currentRoom != null && currentRoom instanceof GameRoom) {
-            System.out.println(clientData.getName() + " initiated the game.");
+            Log.info(Log.Category.GAME, "{} initiated the game.", clientData.getName());
             ((GameRoom) currentRoom).startFirstRound();
         } else {
-            System.err.println("Client is not in a GameRoom or the room is invalid.");
+            Log.warn(Log.Category.GAME, "{} is not in a GameRoom or the room is invalid.", clientData.getName());
         }
     }
 
@@ -173,10 +303,25 @@ public class ServerThread extends Thread {
         }
     }
 
+    // Handle selected categories payload, the message is a list such as "[Science, History]"
+    private void handleSelectedCategoriesPayload(Payload payload) {
+        if (currentRoom == null || clientData == null) {
+            return;
+        }
+        List<String> categories = new ArrayList<>();
+        String message = payload.getMessage() == null ? "" : payload.getMessage().replace("[", "").replace("]", "");
+        for (String category : message.split(",")) {
+            if (!category.trim().isEmpty()) {
+                categories.add(category.trim());
+            }
+        }
+        currentRoom.setSelectedCategories(clientData, categories);
+    }
+
     // Handle notification payload
     private void handleNotificationPayload(Payload payload) {
         // For now, simply print out the notification
-        System.out.println("Notification: " + payload.getMessage());
+        Log.debug(Log.Category.NET, "Notification: {}", payload.getMessage());
     }
 
     // Handle the `START_GAME` payload to notify the clients to start the game
@@ -187,20 +332,47 @@ public class ServerThread extends Thread {
 
     // Method to send a payload to the client
     public void sendPayload(Payload payload) {
-        try {
-            out.writeObject(payload);
-            out.flush();
-        } catch (IOException e) {
-            System.err.println("Error sending payload to client: " + e.getMessage());
+        sendEncoded(new EncodedPayload(payload));
+    }
+
+    // Method to send an already encoded payload, broadcasts share one EncodedPayload between recipients
+    public void sendEncoded(EncodedPayload encoded) {
+        // Only enqueue here, the caller may be a room timer that must not wait on this client's socket
+        if (!outbound.offer(encoded)) {
+            Log.warn(Log.Category.NET, "{} is not keeping up with its outbound queue, disconnecting", clientData == null ? "A client" : clientData.getName());
+            disconnect();
+            return;
         }
+        flushOutbound();
     }
 
-    // Method to disconnect the client
+    // Method to wake the writer of the session's current connection
+    private void flushOutbound() {
+        ClientData data = clientData;
+        ServerThread current = data == null ? this : data.getServerThread();
+        // After a resume the payload was forwarded to the new connection's queue
+        NioServer.Connection target = current == null ? connection : current.connection;
+        if (target != null) {
+            target.requestFlush();
+        }
+    }
+
+    // Method to disconnect the client and end its session
     public void disconnect() {
+        outbound.close();
+        closeConnection();
+    }
+
+    // Method to close the socket but keep the outbound queue, so the session can still be resumed
+    void closeConnection() {
+        if (connection != null) {
+            connection.close();
+            return;
+        }
         try {
             socket.close();
         } catch (IOException e) {
-            System.err.println("Error disconnecting client: " + e.getMessage());
+            Log.debug(Log.Category.NET, "Error disconnecting client: {}", e.getMessage());
         }
     }
 }
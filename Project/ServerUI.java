@@ -1,6 +1,9 @@
 package Project;
 
 import javax.swing.*;
+import javax.swing.border.TitledBorder;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
@@ -8,7 +11,11 @@ import java.awt.event.ActionListener;
 public class ServerUI {
     private Server server;
     private JFrame frame;
-    private DefaultListModel<String> clientListModel;
+    private ClientListModel clientListModel;
+    private JList<ClientListModel.Row> clientList;
+    private JPanel clientPanel;
+    private TitledBorder clientBorder;
+    private JTextField searchField;
     private JLabel statsLabel;
 
     public ServerUI(Server server) {
@@ -23,11 +30,36 @@ public class ServerUI {
         frame.setSize(400, 300);
         frame.setLayout(new BorderLayout());
 
-        // Client list panel
-        JPanel clientPanel = new JPanel(new BorderLayout());
-        clientPanel.setBorder(BorderFactory.createTitledBorder("Connected Clients"));
-        clientListModel = new DefaultListModel<>();
-        JList<String> clientList = new JList<>(clientListModel);
+        // Client list panel, fed by the server's client events rather than rebuilt every second
+        clientPanel = new JPanel(new BorderLayout());
+        clientBorder = BorderFactory.createTitledBorder("Connected Clients (0)");
+        clientPanel.setBorder(clientBorder);
+        clientListModel = new ClientListModel();
+        server.addClientListener(clientListModel);
+        clientList = new JList<>(clientListModel);
+        // Fixed cell sizes keep the list from measuring every row, only the visible rows are rendered
+        clientList.setFixedCellHeight(clientList.getFontMetrics(clientList.getFont()).getHeight() + 2);
+        clientList.setFixedCellWidth(100); // the list still stretches to the viewport width
+        clientList.setCellRenderer(new ClientRenderer());
+        searchField = new JTextField();
+        searchField.setToolTipText("Filter by player or room name");
+        searchField.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                applySearch();
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                applySearch();
+            }
+
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+                applySearch();
+            }
+        });
+        clientPanel.add(searchField, BorderLayout.NORTH);
         clientPanel.add(new JScrollPane(clientList), BorderLayout.CENTER);
 
         // Stats panel
@@ -53,11 +85,20 @@ public class ServerUI {
         frame.add(statsPanel, BorderLayout.SOUTH);
         frame.add(controlPanel, BorderLayout.NORTH);
 
-        // Periodically update client list and stats
-        Timer timer = new Timer(1000, new ActionListener() {
+        // Apply client events in batches, several times a second
+        Timer eventTimer = new Timer(100, new ActionListener() {
             @Override
             public void actionPerformed(ActionEvent e) {
                 updateClientList();
+            }
+        });
+        eventTimer.start();
+
+        // Periodically update stats and the queue figures of the rows on screen
+        Timer timer = new Timer(1000, new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                clientList.repaint();
                 updateStats();
             }
         });
@@ -67,9 +108,40 @@ public class ServerUI {
     }
 
     private void updateClientList() {
-        clientListModel.clear();
-        for (ServerThread client : server.getServerThreads()) {
-            clientListModel.addElement(client.getClientData().getName());
+        if (clientListModel.flush()) {
+            updateClientCount();
+        }
+    }
+
+    private void applySearch() {
+        clientListModel.setFilter(searchField.getText());
+        updateClientCount();
+    }
+
+    private void updateClientCount() {
+        int total = clientListModel.getTotal();
+        int shown = clientListModel.getSize();
+        clientBorder.setTitle("Connected Clients (" + (shown == total ? String.valueOf(total) : shown + " of " + total) + ")");
+        clientPanel.repaint(); // the title is painted by the panel's border
+    }
+
+    /**
+     * Draws a row with the client's room and how far behind its outbound queue is, read when painted
+     */
+    private static class ClientRenderer extends DefaultListCellRenderer {
+        @Override
+        public Component getListCellRendererComponent(JList<?> list, Object value, int index, boolean isSelected,
+                boolean cellHasFocus) {
+            ClientListModel.Row row = (ClientListModel.Row) value;
+            ClientData data = row.getClient();
+            ServerThread thread = data.getServerThread();
+            String text = data.getName() + "  (" + row.getRoomName() + ")";
+            if (thread != null) {
+                OutboundQueue queue = thread.getOutboundQueue();
+                // Show how far behind each client is so lagging players stand out
+                text += "  [queued " + queue.size() + ", dropped " + queue.getDropped() + ", coalesced " + queue.getCoalesced() + "]";
+            }
+            return super.getListCellRendererComponent(list, text, index, isSelected, cellHasFocus);
         }
     }
 
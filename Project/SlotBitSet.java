@@ -0,0 +1,64 @@
+package Project;
+
+import java.util.Arrays;
+
+/**
+ * One bit per room slot, with the number of set bits kept alongside so "has everyone
+ * answered" is a field read. Set, clear and test are O(1) and allocation-free unless the
+ * room outgrows the words array. Not thread-safe; a GameRoom only touches it from its mailbox.
+ */
+public class SlotBitSet {
+    private long[] words;
+    private int count;
+
+    // Constructor
+    public SlotBitSet(int initialSlots) {
+        words = new long[Math.max(1, (initialSlots + 63) >>> 6)];
+    }
+
+    // Method to set a slot's bit, returns false if it was already set
+    public boolean set(int slot) {
+        int word = slot >>> 6;
+        if (word >= words.length) {
+            words = Arrays.copyOf(words, Math.max(words.length * 2, word + 1));
+        }
+        long mask = 1L << slot; // shifts use the low 6 bits only
+        if ((words[word] & mask) != 0) {
+            return false;
+        }
+        words[word] |= mask;
+        count++;
+        return true;
+    }
+
+    // Method to clear a slot's bit, returns false if it was not set
+    public boolean clear(int slot) {
+        int word = slot >>> 6;
+        long mask = 1L << slot;
+        if (word >= words.length || (words[word] & mask) == 0) {
+            return false;
+        }
+        words[word] &= ~mask;
+        count--;
+        return true;
+    }
+
+    // Method to check a slot's bit
+    public boolean get(int slot) {
+        int word = slot >>> 6;
+        return word < words.length && (words[word] & (1L << slot)) != 0;
+    }
+
+    // Method to clear every bit
+    public void clearAll() {
+        if (count > 0) {
+            Arrays.fill(words, 0);
+            count = 0;
+        }
+    }
+
+    // Getter for the number of set bits
+    public int count() {
+        return count;
+    }
+}
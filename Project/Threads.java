@@ -0,0 +1,54 @@
+package Project;
+
+import java.lang.reflect.Method;
+
+/**
+ * Starts connection handler threads either as platform threads or as virtual threads.
+ * Virtual threads are looked up reflectively so the project still compiles and runs on
+ * JDKs without them; on those JDKs a virtual request falls back to a platform thread.
+ */
+public class Threads {
+    private static final Method OF_VIRTUAL = findMethod(Thread.class, "ofVirtual");
+    private static final Method BUILDER_NAME = findBuilderMethod("name", String.class);
+    private static final Method BUILDER_START = findBuilderMethod("start", Runnable.class);
+
+    private Threads() {
+    }
+
+    // Method to check if the running JDK supports virtual threads
+    public static boolean virtualThreadsSupported() {
+        return OF_VIRTUAL != null && BUILDER_NAME != null && BUILDER_START != null;
+    }
+
+    // Method to start a task on a new thread, virtual when requested and supported
+    public static Thread start(String name, Runnable task, boolean virtual) {
+        if (virtual && virtualThreadsSupported()) {
+            try {
+                Object builder = OF_VIRTUAL.invoke(null);
+                builder = BUILDER_NAME.invoke(builder, name);
+                return (Thread) BUILDER_START.invoke(builder, task);
+            } catch (ReflectiveOperationException e) {
+                System.err.println("Unable to start virtual thread, using a platform thread: " + e.getMessage());
+            }
+        }
+        Thread thread = new Thread(task, name);
+        thread.start();
+        return thread;
+    }
+
+    private static Method findMethod(Class<?> type, String name, Class<?>... parameterTypes) {
+        try {
+            return type.getMethod(name, parameterTypes);
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+    private static Method findBuilderMethod(String name, Class<?>... parameterTypes) {
+        try {
+            return findMethod(Class.forName("java.lang.Thread$Builder"), name, parameterTypes);
+        } catch (ClassNotFoundException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package Project;
+
+import javax.swing.Timer;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Hands UI updates from the client's listener thread to the EDT once per display frame.
+ * post() only appends to a lock-free queue; the first update after a quiet period arms a
+ * one-shot timer, and the EDT then runs everything queued as one batch. An update posted
+ * with a key replaces the earlier updates with the same key in that batch, so a burst of
+ * timer ticks or scoreboards costs one repaint instead of one per message.
+ */
+public class UiEventQueue {
+
+    private static class Event {
+        private final String key; // null if the update must always run
+        private final Runnable update;
+
+        Event(String key, Runnable update) {
+            this.key = key;
+            this.update = update;
+        }
+    }
+
+    private final ConcurrentLinkedQueue<Event> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    private final Timer frameTimer;
+    private final Runnable afterBatch;
+
+    // Constructor, `afterBatch` runs on the EDT once every batch has been applied
+    public UiEventQueue(int frameMillis, Runnable afterBatch) {
+        this.afterBatch = afterBatch;
+        this.frameTimer = new Timer(frameMillis, e -> drain());
+        frameTimer.setRepeats(false);
+    }
+
+    // Method to queue an update that always runs, from any thread
+    public void post(Runnable update) {
+        post(null, update);
+    }
+
+    // Method to queue an update that a later update with the same key makes unnecessary, from any thread
+    public void post(String key, Runnable update) {
+        pending.add(new Event(key, update));
+        if (scheduled.compareAndSet(false, true)) {
+            frameTimer.restart(); // Swing timers can be started from any thread, the drain runs on the EDT
+        }
+    }
+
+    // Method to apply the queued updates in order, skipping superseded ones, on the EDT
+    private void drain() {
+        scheduled.set(false); // anything posted from here on arms the timer again
+        List<Event> batch = new ArrayList<>();
+        Event event;
+        while ((event = pending.poll()) != null) {
+            batch.add(event);
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+        // Walk back from the newest update so only the last one of each key is kept
+        Set<String> seen = new HashSet<>();
+        for (int i = batch.size() - 1; i >= 0; i--) {
+            String key = batch.get(i).key;
+            if (key != null && !seen.add(key)) {
+                batch.set(i, null);
+            }
+        }
+        for (Event update : batch) {
+            if (update == null) {
+                continue;
+            }
+            try {
+                update.update.run();
+            } catch (RuntimeException e) {
+                // One bad update should not drop the rest of the frame
+                System.err.println("UI update failed: " + e);
+            }
+        }
+        afterBatch.run();
+    }
+}